@@ -0,0 +1,124 @@
+package org.example.chess;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the Board hot paths, each run on an opening and a sparse endgame position.
+ * Build and run with: mvn -P benchmark package && java -jar target/benchmarks.jar
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private static final int MAX_PLAYOUT_PLIES = 200;
+
+    @Param({"opening", "endgame"})
+    public String position;
+
+    private Board board;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = createBoard(position);
+    }
+
+    /**
+     * Builds the named position. Both have knights on g1/g8 so the move benchmark can shuffle
+     * them back and forth without changing the position.
+     */
+    static Board createBoard(String name) {
+        if (name.equals("endgame")) {
+            return Board.fromFen("4k1nr/p7/1p6/8/8/1P6/P7/4K1NR w Kk - 0 1");
+        }
+        return new Board();
+    }
+
+    /**
+     * Four moves (Ng1-f3, Ng8-f6, Nf3-g1, Nf6-g8) that bring the board back to where it started.
+     * Every move is pushed onto the undo stack, so they are taken back again to keep the stack,
+     * and the repetition history, from growing across invocations.
+     */
+    @Benchmark
+    public void moveKnightRoundTrip(Blackhole blackhole) {
+        blackhole.consume(board.move("g1f3"));
+        blackhole.consume(board.move("g8f6"));
+        blackhole.consume(board.move("f3g1"));
+        blackhole.consume(board.move("f6g8"));
+        for (int i = 0; i < 4; i++) {
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public ParsedMove parseShortAlgebraic() {
+        return board.parseAlgebraicNotation("Nf3");
+    }
+
+    @Benchmark
+    public ParsedMove parseCoordinate() {
+        return board.parseAlgebraicNotation("g1f3");
+    }
+
+    @Benchmark
+    public int parseMoveSan() {
+        return board.parseMove("Nf3");
+    }
+
+    @Benchmark
+    public int parseMoveUci() {
+        return board.parseMove("g1f3");
+    }
+
+    @Benchmark
+    public boolean isKingInCheck() {
+        return board.isKingInCheck(Piece.PieceColor.WHITE);
+    }
+
+    @Benchmark
+    public String findRandomLegalMove() {
+        return board.findRandomLegalMove();
+    }
+
+    /**
+     * Plays one random game from the benchmark position until mate, stalemate or the ply cap.
+     * @return The number of plies played.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int randomPlayout() {
+        Board playoutBoard = createBoard(position);
+        int plies = 0;
+        while (plies < MAX_PLAYOUT_PLIES) {
+            String move = playoutBoard.findRandomLegalMove();
+            if (move == null) {
+                break;
+            }
+            Board.MoveResult result = playoutBoard.move(move);
+            if (result == Board.MoveResult.PROMOTION_PENDING) {
+                ParsedMove parsedMove = playoutBoard.parseAlgebraicNotation(move);
+                playoutBoard.finalizePromotion(parsedMove.endRow, parsedMove.endCol, Piece.PieceType.QUEEN);
+            }
+            plies++;
+        }
+        return plies;
+    }
+}
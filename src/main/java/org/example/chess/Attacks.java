@@ -0,0 +1,280 @@
+package org.example.chess;
+
+/**
+ * Attack lookup tables shared by every Board, built once at class load. Square 0 = a1, 63 = h8.
+ * Slider attacks use magic bitboards: the blockers on a piece's relevant squares are multiplied
+ * by a per-square magic number whose top bits index a table of precomputed attack sets.
+ */
+final class Attacks {
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    // PAWN[color][square]: squares a pawn of that color standing on square attacks.
+    static final long[][] PAWN = new long[2][64];
+
+    // Ray directions as (rank, file) steps. The first four point towards higher square indexes.
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {0, 1}, {1, 1}, {1, -1},      // N, E, NE, NW
+            {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}   // S, W, SW, SE
+    };
+    private static final int NORTH = 0, EAST = 1, NORTH_EAST = 2, NORTH_WEST = 3;
+    private static final int SOUTH = 4, WEST = 5, SOUTH_WEST = 6, SOUTH_EAST = 7;
+
+    // RAYS[direction][square]: every square from square (exclusive) to the board edge.
+    private static final long[][] RAYS = new long[8][64];
+
+    // BETWEEN[a][b]: squares strictly between a and b if they share a rank, file or diagonal, else 0.
+    static final long[][] BETWEEN = new long[64][64];
+    // LINE[a][b]: the whole rank, file or diagonal through a and b (both included), else 0.
+    static final long[][] LINE = new long[64][64];
+
+    // Magic numbers per square, found by findMagic() with MAGIC_SEEDS and printed by main().
+    // Searching for them at class load took about 200 ms on every start.
+    private static final long[] ROOK_MAGIC = {
+            0x0A80004000801220L, 0x8040004010002008L, 0x2080200010008008L, 0x1100100008210004L,
+            0xC200209084020008L, 0x2100010004000208L, 0x0400081000822421L, 0x0200010422048844L,
+            0x0041800280400020L, 0x0001404010002000L, 0x2083004020010010L, 0x0000801000800804L,
+            0x1130808008000400L, 0x0021000900020400L, 0x4002808011000200L, 0x0802000102088464L,
+            0x8104248000400090L, 0x011000C000402000L, 0x6080808020001001L, 0x1010008010080080L,
+            0x0041010004080011L, 0x0000808004000200L, 0x0000040008100201L, 0x6002020000804401L,
+            0x4200400280048021L, 0x6000208100400100L, 0x2000104100200100L, 0x1208100080080084L,
+            0x0412000A00200410L, 0x8400020080800400L, 0x8684900400210228L, 0x0210004200010084L,
+            0x0840004080800034L, 0x0210004000402004L, 0x8C1081200C801000L, 0x8004841000800800L,
+            0x0080814802800400L, 0x000C000200808004L, 0x8000020804001001L, 0x0100010082000044L,
+            0x0001800040038021L, 0x2401201002444000L, 0x8548200100110040L, 0x0110040008004040L,
+            0x00A1000800050010L, 0x2801008400090002L, 0x0B28880201040050L, 0x2004008410420001L,
+            0x2102042084410200L, 0x2080201000400240L, 0x0001001020004100L, 0x0200081000210100L,
+            0x0008080080040080L, 0x0A02010408100200L, 0x1040800200010080L, 0x008C004899040200L,
+            0x0020850200244012L, 0x0020850200244012L, 0x0000102001040841L, 0x140900040A100021L,
+            0x000200282410A102L, 0x000200282410A102L, 0x000200282410A102L, 0x4048240043802106L
+    };
+    private static final long[] BISHOP_MAGIC = {
+            0x40106000A1160020L, 0x0020010250810120L, 0x2010010220280081L, 0x002806004050C040L,
+            0x0002021018000000L, 0x2001112010000400L, 0x0881010120218080L, 0x1030820110010500L,
+            0xA000411101010100L, 0x9000200104608880L, 0x000C1000BA004888L, 0x0090244400850485L,
+            0x0200040504128140L, 0x308D010402400000L, 0x3000010092104040L, 0x0204002101101084L,
+            0x8040004990312210L, 0x0004801001020400L, 0x0008049002441820L, 0x2008805806024300L,
+            0x2004000200A20000L, 0x0002028020842010L, 0x2000C002080A2910L, 0x108200428A048200L,
+            0x0804200010608100L, 0xC281904120020200L, 0x109428020C080021L, 0x0040040042430020L,
+            0x2418840009802000L, 0x00B0204002080200L, 0x50A8006A0A022200L, 0x1011020011462080L,
+            0x0008600420501403L, 0xC2010109A8200804L, 0xC002050440100040L, 0x8000040400080211L,
+            0x09A0208400048020L, 0x0040808202050100L, 0x0608010100004840L, 0x0608010100004840L,
+            0x0009411040081000L, 0x1019009004001000L, 0x8440210040483800L, 0x4000084010400208L,
+            0x1030142704002A10L, 0x4190B01000200041L, 0x24108450A4045380L, 0x2108008104500202L,
+            0x0400841008040300L, 0x0000208410080100L, 0x681001008804000AL, 0x042080C042120508L,
+            0x8018004005010005L, 0x2102042084410200L, 0x8052200204104828L, 0x4082103202004006L,
+            0x0001008044200440L, 0x0004C04410841000L, 0x2000500104011130L, 0x1A0C010011C20229L,
+            0x0044800112202200L, 0x0434804908100424L, 0x0300404822C08200L, 0x48081010008A2A80L
+    };
+
+    // Magic bitboard tables. *_MASK holds the squares whose occupancy matters (rays without the
+    // board edge), *_ATTACKS[square] is indexed by ((occupied & mask) * magic) >>> shift.
+    private static final long[] ROOK_MASK = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    // Seeds for the magic search, one per rank. Tried offline so that the search finds every
+    // magic in few attempts; any seed works, but poor ones make the search slower.
+    private static final long[] MAGIC_SEEDS = {728, 2985, 786, 2501, 2009, 2821, 1699, 255};
+    private static long magicRandomState;
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int square = 0; square < 64; square++) {
+            int rank = square >>> 3;
+            int file = square & 7;
+
+            for (int[] step : knightSteps) {
+                KNIGHT[square] |= bit(rank + step[0], file + step[1]);
+            }
+            for (int[] step : DIRECTIONS) {
+                KING[square] |= bit(rank + step[0], file + step[1]);
+            }
+            PAWN[Piece.PieceColor.WHITE.ordinal()][square] = bit(rank + 1, file - 1) | bit(rank + 1, file + 1);
+            PAWN[Piece.PieceColor.BLACK.ordinal()][square] = bit(rank - 1, file - 1) | bit(rank - 1, file + 1);
+
+            for (int dir = 0; dir < 8; dir++) {
+                int r = rank + DIRECTIONS[dir][0];
+                int f = file + DIRECTIONS[dir][1];
+                while (r >= 0 && r < 8 && f >= 0 && f < 8) {
+                    RAYS[dir][square] |= 1L << (r * 8 + f);
+                    r += DIRECTIONS[dir][0];
+                    f += DIRECTIONS[dir][1];
+                }
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            for (int dir = 0; dir < 8; dir++) {
+                // Directions 0-3 and 4-7 are opposites of each other.
+                long line = RAYS[dir][square] | RAYS[(dir + 4) & 7][square] | (1L << square);
+                long ray = RAYS[dir][square];
+                while (ray != 0) {
+                    int target = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    BETWEEN[square][target] = RAYS[dir][square] & ~RAYS[dir][target] & ~(1L << target);
+                    LINE[square][target] = line;
+                }
+            }
+        }
+
+        long fileA = 0x0101010101010101L, fileH = fileA << 7, rank1 = 0xFFL, rank8 = rank1 << 56;
+        long edges = fileA | fileH | rank1 | rank8;
+        for (int square = 0; square < 64; square++) {
+            // A blocker on the last square of a ray never changes the attacks, so edges are left out.
+            ROOK_MASK[square] = (RAYS[NORTH][square] & ~rank8) | (RAYS[SOUTH][square] & ~rank1)
+                    | (RAYS[EAST][square] & ~fileH) | (RAYS[WEST][square] & ~fileA);
+            BISHOP_MASK[square] = (RAYS[NORTH_EAST][square] | RAYS[NORTH_WEST][square]
+                    | RAYS[SOUTH_WEST][square] | RAYS[SOUTH_EAST][square]) & ~edges;
+
+            ROOK_SHIFT[square] = 64 - Long.bitCount(ROOK_MASK[square]);
+            ROOK_ATTACKS[square] = new long[1 << Long.bitCount(ROOK_MASK[square])];
+            fillMagicTable(square, ROOK_MASK[square], ROOK_MAGIC[square], ROOK_SHIFT[square], ROOK_ATTACKS[square], false);
+
+            BISHOP_SHIFT[square] = 64 - Long.bitCount(BISHOP_MASK[square]);
+            BISHOP_ATTACKS[square] = new long[1 << Long.bitCount(BISHOP_MASK[square])];
+            fillMagicTable(square, BISHOP_MASK[square], BISHOP_MAGIC[square], BISHOP_SHIFT[square], BISHOP_ATTACKS[square], true);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * Fills a square's attack table through its magic number. The magics are known to be
+     * collision-free (see isValidMagic()), so every slot is simply written.
+     */
+    private static void fillMagicTable(int square, long mask, long magic, int shift, long[] table, boolean bishop) {
+        // Carry-Rippler walk over every subset of the mask.
+        long subset = 0L;
+        do {
+            table[(int) ((subset * magic) >>> shift)] = bishop ? slowBishopAttacks(square, subset) : slowRookAttacks(square, subset);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    /**
+     * Maps every blocker subset of the mask through the magic, filling the table as it goes.
+     * Two subsets may share a slot only if their attacks agree.
+     * @return false at the first harmful collision; the table is then only partly filled.
+     */
+    private static boolean tryMagic(int square, long mask, long magic, int shift, long[] table, boolean bishop) {
+        boolean[] used = new boolean[table.length];
+        // Carry-Rippler walk over every subset of the mask.
+        long subset = 0L;
+        do {
+            long attacks = bishop ? slowBishopAttacks(square, subset) : slowRookAttacks(square, subset);
+            int index = (int) ((subset * magic) >>> shift);
+            if (!used[index]) {
+                used[index] = true;
+                table[index] = attacks;
+            } else if (table[index] != attacks) {
+                return false;
+            }
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        return true;
+    }
+
+    /**
+     * @return true if the magic number in use for the square is collision-free.
+     */
+    static boolean isValidMagic(int square, boolean bishop) {
+        long mask = bishop ? BISHOP_MASK[square] : ROOK_MASK[square];
+        long magic = bishop ? BISHOP_MAGIC[square] : ROOK_MAGIC[square];
+        int shift = bishop ? BISHOP_SHIFT[square] : ROOK_SHIFT[square];
+        return tryMagic(square, mask, magic, shift, new long[1 << (64 - shift)], bishop);
+    }
+
+    /**
+     * Searches for a magic number for the square, trying sparse random numbers until one is
+     * collision-free. Only used to generate the constant tables.
+     */
+    static long findMagic(int square, boolean bishop) {
+        long mask = bishop ? BISHOP_MASK[square] : ROOK_MASK[square];
+        int shift = bishop ? BISHOP_SHIFT[square] : ROOK_SHIFT[square];
+        long[] table = new long[1 << (64 - shift)];
+        magicRandomState = MAGIC_SEEDS[square >>> 3];
+        while (true) {
+            // Magics with few set bits work best.
+            long magic = nextMagicRandom() & nextMagicRandom() & nextMagicRandom();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue; // Too few high bits to spread the index; skip without testing.
+            }
+            if (tryMagic(square, mask, magic, shift, table, bishop)) {
+                return magic;
+            }
+        }
+    }
+
+    /**
+     * xorshift64* generator for the magic search.
+     */
+    private static long nextMagicRandom() {
+        magicRandomState ^= magicRandomState >>> 12;
+        magicRandomState ^= magicRandomState << 25;
+        magicRandomState ^= magicRandomState >>> 27;
+        return magicRandomState * 2685821657736338717L;
+    }
+
+    private static long bit(int rank, int file) {
+        if (rank < 0 || rank >= 8 || file < 0 || file >= 8) {
+            return 0L;
+        }
+        return 1L << (rank * 8 + file);
+    }
+
+    /**
+     * Squares reached along one ray, stopping at (and including) the first occupied square.
+     */
+    private static long rayAttacks(int dir, int square, long occupied) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        int firstBlocker = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[dir][firstBlocker];
+    }
+
+    // Ray walks, only used to fill the magic tables.
+    private static long slowBishopAttacks(int square, long occupied) {
+        return rayAttacks(NORTH_EAST, square, occupied) | rayAttacks(NORTH_WEST, square, occupied)
+                | rayAttacks(SOUTH_WEST, square, occupied) | rayAttacks(SOUTH_EAST, square, occupied);
+    }
+
+    private static long slowRookAttacks(int square, long occupied) {
+        return rayAttacks(NORTH, square, occupied) | rayAttacks(EAST, square, occupied)
+                | rayAttacks(SOUTH, square, occupied) | rayAttacks(WEST, square, occupied);
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_ATTACKS[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_ATTACKS[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    /**
+     * Searches for every magic number again and prints them as the ROOK_MAGIC and
+     * BISHOP_MAGIC tables, e.g. after changing MAGIC_SEEDS.
+     */
+    public static void main(String[] args) {
+        for (boolean bishop : new boolean[] {false, true}) {
+            StringBuilder sb = new StringBuilder(bishop ? "BISHOP_MAGIC = {" : "ROOK_MAGIC = {");
+            for (int square = 0; square < 64; square++) {
+                sb.append(square % 4 == 0 ? "\n       " : "").append(String.format(" 0x%016XL,", findMagic(square, bishop)));
+            }
+            sb.setLength(sb.length() - 1);
+            System.out.println(sb.append("\n};"));
+        }
+    }
+}
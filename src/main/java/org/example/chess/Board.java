@@ -1,43 +1,101 @@
 package org.example.chess;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class Board {
-    private Piece[][] squares;
+    // Bitboard backend. Square index 0 is a1 and 63 is h8 (rank * 8 + file), so row 0 of the
+    // public row/col API (rank 8) maps to squares 56..63. One bitboard per color and piece type,
+    // indexed by bitboardIndex(), plus per-color and total occupancy masks.
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorOccupancy = new long[2];
+    private long occupied;
+    // Zobrist key of the whole position, kept up to date incrementally (see Zobrist).
+    private long zobristKey;
+    // Squares attacked by each color, built on demand and dropped by setSquare() whenever the
+    // position changes. Bit n of attackMapsValid says whether attackMaps[n] is current.
+    private final long[] attackMaps = new long[2];
+    private int attackMapsValid;
+    // Material and piece-square sums, kept up to date by setSquare().
+    private final Evaluator evaluator = new Evaluator();
+    // Mailbox kept alongside the bitboards so getPiece() stays a single array read.
+    private final Piece[] squares = new Piece[64];
     private Piece.PieceColor currentPlayerTurn;
     private Random random;
 
-    private Map<Piece.PieceColor, Map<Piece.PieceType, Integer>> pieceCounts;
+    // Number of pieces of each kind, indexed by bitboardIndex(), and the same counts packed
+    // into one long (see getMaterialSignature()) for O(1) material pattern checks.
+    private final int[] pieceCounts = new int[12];
+    private long materialSignature;
 
-    private int[] enPassantTargetSquare = null;
+    private final int[] moveBuffer = new int[Move.MAX_MOVES];
 
-    private boolean whiteKingMoved = false;
-    private boolean blackKingMoved = false;
-    private boolean whiteRookAMoved = false;
-    private boolean whiteRookHMoved = false;
-    private boolean blackRookAMoved = false;
-    private boolean blackRookHMoved = false;
+    // Undo stack for makeMove()/unmakeMove(), one entry per move made. Preallocated for a long
+    // game and doubled if a game or search ever goes deeper.
+    private int undoSize = 0;
+    private int[] undoMoves = new int[INITIAL_UNDO_CAPACITY];
+    private Piece[] undoMovedPieces = new Piece[INITIAL_UNDO_CAPACITY];
+    private Piece[] undoCapturedPieces = new Piece[INITIAL_UNDO_CAPACITY];
+    private int[] undoCastlingFlags = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoEnPassantSquares = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoHalfmoveClocks = new int[INITIAL_UNDO_CAPACITY];
 
-    private static final Pattern FULL_MOVE_NOTATION_PATTERN = Pattern.compile("^[a-h][1-8][a-h][1-8]$");
-    private static final Pattern DISAMBIGUATED_FILE_MOVE_PATTERN = Pattern.compile("^[NBRQK][a-h][a-h][1-8]$");
-    private static final Pattern DISAMBIGUATED_RANK_MOVE_PATTERN = Pattern.compile("^[NBRQK][1-8][a-h][1-8]$");
-    private static final Pattern SHORTENED_PIECE_MOVE_PATTERN = Pattern.compile("^[NBRQK][a-h][1-8]$");
+    // Zobrist keys of the positions before each move made, oldest first; the top entries double as
+    // the undo stack's keys. Only the last halfmoveClock entries can repeat the current position,
+    // so a copied board keeps just those.
+    private long[] keyHistory = new long[INITIAL_UNDO_CAPACITY];
+    private int keyHistorySize = 0;
+
+    // Plies since the last capture or pawn move, and the FEN fullmove number.
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+
+    // Pawn move waiting in PROMOTION_PENDING for finalizePromotion(), or Move.NONE.
+    private int pendingPromotionMove = Move.NONE;
+
+    // One move buffer per ply for perft and other recursive walks, grown on demand.
+    private int[][] plyMoveBuffers = new int[0][];
+
+    private int enPassantTargetSquare = NO_SQUARE;
+
+    // Receives rule and validation messages; silent unless a front-end installs one.
+    private BoardListener listener = BoardListener.NONE;
+
+    boolean whiteKingMoved = false;
+    boolean blackKingMoved = false;
+    boolean whiteRookAMoved = false;
+    boolean whiteRookHMoved = false;
+    boolean blackRookAMoved = false;
+    boolean blackRookHMoved = false;
 
     private static final Pattern PIECE_PLACEMENT_PATTERN = Pattern.compile("^[NBRQKPRQnbrqkprq][a-h][1-8]$");
 
-    private static final Pattern CASTLE_KINGSIDE_PATTERN = Pattern.compile("O-O|0-0");
-    private static final Pattern CASTLE_QUEENSIDE_PATTERN = Pattern.compile("O-O-O|0-0-0");
-    private static final Pattern PROMOTION_NOTATION_PATTERN = Pattern.compile("^[a-h][1-8][a-h][1-8][NBRQ]$");
-    private static final Pattern PAWN_PUSH_NOTATION_PATTERN = Pattern.compile("^[a-h][1-8]$");
-    private static final Pattern PAWN_CAPTURE_NOTATION_PATTERN = Pattern.compile("^[a-h]x[a-h][1-8]$");
 
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    static final int NO_SQUARE = -1;
+    // Largest move counter accepted from a FEN record.
+    private static final int MAX_FEN_COUNTER = 1_000_000;
+    // Bits per piece kind in the material signature; enough for ten knights after promotions.
+    private static final int SIGNATURE_BITS = 4;
+    private static final long SIGNATURE_KINGS = materialSignatureMask('K') | materialSignatureMask('k');
+    private static final long SIGNATURE_BISHOPS = materialSignatureMask('B') | materialSignatureMask('b');
+    private static final long SIGNATURE_WHITE_KNIGHT = materialSignature("N");
+    private static final long SIGNATURE_BLACK_KNIGHT = materialSignature("n");
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+    private static final long BACK_RANKS = 0xFF000000000000FFL;
+    private static final int INITIAL_UNDO_CAPACITY = 256;
+
+    // Bits of castlingRights(), in FEN order.
+    static final int WHITE_SHORT = 1, WHITE_LONG = 2, BLACK_SHORT = 4, BLACK_LONG = 8;
+
+    // Corner squares whose rooks carry castling rights.
+    private static final int A1 = 0, H1 = 7, A8 = 56, H8 = 63;
 
     public enum MoveResult {
         VALID,
@@ -45,25 +103,29 @@ public class Board {
         PROMOTION_PENDING
     }
 
+    public enum DrawReason {
+        THREEFOLD_REPETITION,
+        FIFTY_MOVE_RULE,
+        INSUFFICIENT_MATERIAL
+    }
+
     // --- Piece Values for AI Evaluation ---
-    private static final Map<Piece.PieceType, Integer> PIECE_VALUES;
-    static {
-        PIECE_VALUES = new HashMap<>();
-        PIECE_VALUES.put(Piece.PieceType.PAWN, 10);
-        PIECE_VALUES.put(Piece.PieceType.KNIGHT, 30);
-        PIECE_VALUES.put(Piece.PieceType.BISHOP, 30);
-        PIECE_VALUES.put(Piece.PieceType.ROOK, 50);
-        PIECE_VALUES.put(Piece.PieceType.QUEEN, 90);
-        PIECE_VALUES.put(Piece.PieceType.KING, 900);
+    // Middlegame material in centipawns, indexed by PieceType ordinal (KING, QUEEN, ROOK,
+    // BISHOP, KNIGHT, PAWN). Kings are never captured, so they carry no material value.
+    private static final int[] PIECE_VALUES = {0, 900, 500, 330, 320, 100};
+
+    /**
+     * @return The material value of a piece type from PIECE_VALUES (pawn = 100).
+     */
+    static int pieceValue(Piece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
     }
 
     public Board() {
-        squares = new Piece[8][8];
         random = new Random();
-        initializePieceCounts();
         setupInitialBoard();
         currentPlayerTurn = Piece.PieceColor.WHITE;
-        enPassantTargetSquare = null;
+        enPassantTargetSquare = NO_SQUARE;
 
         whiteKingMoved = false;
         blackKingMoved = false;
@@ -71,61 +133,286 @@ public class Board {
         whiteRookHMoved = false;
         blackRookAMoved = false;
         blackRookHMoved = false;
+        zobristKey = computeZobristKey();
+    }
+
+    /**
+     * Copies another board's position (pieces, piece counts, side to move, castling flags, en
+     * passant square, move counters and Zobrist key) with an empty undo stack, so that each
+     * search thread can work on a board of its own. The keys needed to detect repetitions are
+     * copied too.
+     */
+    Board(Board other) {
+        random = new Random();
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(other.colorOccupancy, 0, colorOccupancy, 0, colorOccupancy.length);
+        occupied = other.occupied;
+        evaluator.copyFrom(other.evaluator);
+        // Pieces are shared immutable instances, so the copy can point at the same ones.
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        System.arraycopy(other.pieceCounts, 0, pieceCounts, 0, pieceCounts.length);
+        materialSignature = other.materialSignature;
+        currentPlayerTurn = other.currentPlayerTurn;
+        enPassantTargetSquare = other.enPassantTargetSquare;
+        zobristKey = other.zobristKey;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        int reversiblePlies = Math.min(other.keyHistorySize, other.halfmoveClock);
+        if (reversiblePlies > keyHistory.length) {
+            keyHistory = new long[reversiblePlies * 2];
+        }
+        System.arraycopy(other.keyHistory, other.keyHistorySize - reversiblePlies, keyHistory, 0, reversiblePlies);
+        keyHistorySize = reversiblePlies;
+
+        whiteKingMoved = other.whiteKingMoved;
+        blackKingMoved = other.blackKingMoved;
+        whiteRookAMoved = other.whiteRookAMoved;
+        whiteRookHMoved = other.whiteRookHMoved;
+        blackRookAMoved = other.blackRookAMoved;
+        blackRookHMoved = other.blackRookHMoved;
     }
 
     private void setupInitialBoard() {
         for (int i = 0; i < 8; i++) {
-            squares[1][i] = new Piece(Piece.PieceType.PAWN, Piece.PieceColor.BLACK);
+            setPieceAt(1, i, Piece.of(Piece.PieceType.PAWN, Piece.PieceColor.BLACK));
             incrementPieceCount(Piece.PieceType.PAWN, Piece.PieceColor.BLACK);
-            squares[6][i] = new Piece(Piece.PieceType.PAWN, Piece.PieceColor.WHITE);
+            setPieceAt(6, i, Piece.of(Piece.PieceType.PAWN, Piece.PieceColor.WHITE));
             incrementPieceCount(Piece.PieceType.PAWN, Piece.PieceColor.WHITE);
         }
 
-        squares[0][0] = new Piece(Piece.PieceType.ROOK, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.BLACK);
-        squares[0][1] = new Piece(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK);
-        squares[0][2] = new Piece(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK);
-        squares[0][3] = new Piece(Piece.PieceType.QUEEN, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.QUEEN, Piece.PieceColor.BLACK);
-        squares[0][4] = new Piece(Piece.PieceType.KING, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.KING, Piece.PieceColor.BLACK);
-        squares[0][5] = new Piece(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK);
-        squares[0][6] = new Piece(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK);
-        squares[0][7] = new Piece(Piece.PieceType.ROOK, Piece.PieceColor.BLACK); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.BLACK);
+        setPieceAt(0, 0, Piece.of(Piece.PieceType.ROOK, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.BLACK);
+        setPieceAt(0, 1, Piece.of(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK);
+        setPieceAt(0, 2, Piece.of(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK);
+        setPieceAt(0, 3, Piece.of(Piece.PieceType.QUEEN, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.QUEEN, Piece.PieceColor.BLACK);
+        setPieceAt(0, 4, Piece.of(Piece.PieceType.KING, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.KING, Piece.PieceColor.BLACK);
+        setPieceAt(0, 5, Piece.of(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK);
+        setPieceAt(0, 6, Piece.of(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.BLACK);
+        setPieceAt(0, 7, Piece.of(Piece.PieceType.ROOK, Piece.PieceColor.BLACK)); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.BLACK);
+
+        setPieceAt(7, 0, Piece.of(Piece.PieceType.ROOK, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.WHITE);
+        setPieceAt(7, 1, Piece.of(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE);
+        setPieceAt(7, 2, Piece.of(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE);
+        setPieceAt(7, 3, Piece.of(Piece.PieceType.QUEEN, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.QUEEN, Piece.PieceColor.WHITE);
+        setPieceAt(7, 4, Piece.of(Piece.PieceType.KING, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.KING, Piece.PieceColor.WHITE);
+        setPieceAt(7, 5, Piece.of(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE);
+        setPieceAt(7, 6, Piece.of(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE);
+        setPieceAt(7, 7, Piece.of(Piece.PieceType.ROOK, Piece.PieceColor.WHITE)); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.WHITE);
+    }
 
-        squares[7][0] = new Piece(Piece.PieceType.ROOK, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.WHITE);
-        squares[7][1] = new Piece(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE);
-        squares[7][2] = new Piece(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE);
-        squares[7][3] = new Piece(Piece.PieceType.QUEEN, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.QUEEN, Piece.PieceColor.WHITE);
-        squares[7][4] = new Piece(Piece.PieceType.KING, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.KING, Piece.PieceColor.WHITE);
-        squares[7][5] = new Piece(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE);
-        squares[7][6] = new Piece(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.KNIGHT, Piece.PieceColor.WHITE);
-        squares[7][7] = new Piece(Piece.PieceType.ROOK, Piece.PieceColor.WHITE); incrementPieceCount(Piece.PieceType.ROOK, Piece.PieceColor.WHITE);
+    static int toSquare(int row, int col) {
+        return (7 - row) * 8 + col;
     }
 
-    private void initializePieceCounts() {
-        pieceCounts = new HashMap<>();
-        for (Piece.PieceColor color : Piece.PieceColor.values()) {
-            pieceCounts.put(color, new HashMap<>());
-            for (Piece.PieceType type : Piece.PieceType.values()) {
-                pieceCounts.get(color).put(type, 0);
-            }
+    static int rowOf(int square) {
+        return 7 - (square >>> 3);
+    }
+
+    static int colOf(int square) {
+        return square & 7;
+    }
+
+    static int bitboardIndex(Piece.PieceType type, Piece.PieceColor color) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    private Piece pieceAt(int row, int col) {
+        return squares[toSquare(row, col)];
+    }
+
+    Piece pieceOn(int square) {
+        return squares[square];
+    }
+
+    private void setPieceAt(int row, int col, Piece piece) {
+        setSquare(toSquare(row, col), piece);
+    }
+
+    /**
+     * Puts a piece on (or removes it from, when piece is null) a square, keeping the mailbox,
+     * the piece bitboards, the occupancy masks and the Zobrist key in sync. Does not touch piece counts.
+     */
+    private void setSquare(int square, Piece piece) {
+        long bit = 1L << square;
+        Piece oldPiece = squares[square];
+        if (oldPiece != null) {
+            int index = oldPiece.index();
+            pieceBitboards[index] &= ~bit;
+            colorOccupancy[oldPiece.getColor().ordinal()] &= ~bit;
+            zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+            evaluator.remove(index, square);
         }
+        if (piece != null) {
+            int index = piece.index();
+            pieceBitboards[index] |= bit;
+            colorOccupancy[piece.getColor().ordinal()] |= bit;
+            zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+            evaluator.add(index, square);
+        }
+        squares[square] = piece;
+        occupied = colorOccupancy[0] | colorOccupancy[1];
+        attackMapsValid = 0;
+    }
+
+    private void resetPieceCounts() {
+        Arrays.fill(pieceCounts, 0);
+        materialSignature = 0L;
     }
 
     private void incrementPieceCount(Piece.PieceType type, Piece.PieceColor color) {
-        pieceCounts.get(color).put(type, pieceCounts.get(color).get(type) + 1);
+        int index = bitboardIndex(type, color);
+        pieceCounts[index]++;
+        materialSignature += 1L << (index * SIGNATURE_BITS);
     }
 
     private void decrementPieceCount(Piece.PieceType type, Piece.PieceColor color) {
-        pieceCounts.get(color).put(type, pieceCounts.get(color).get(type) - 1);
+        int index = bitboardIndex(type, color);
+        pieceCounts[index]--;
+        materialSignature -= 1L << (index * SIGNATURE_BITS);
+    }
+
+    /**
+     * @return How many pieces of the given type and color are on the board.
+     */
+    public int getPieceCount(Piece.PieceType type, Piece.PieceColor color) {
+        return pieceCounts[bitboardIndex(type, color)];
+    }
+
+    /**
+     * Returns the piece counts packed into one long, SIGNATURE_BITS bits per kind of piece in
+     * bitboardIndex() order. Positions with the same material have the same signature, so a
+     * material pattern is recognized with a single comparison against
+     * {@link #materialSignature(CharSequence)}.
+     */
+    public long getMaterialSignature() {
+        return materialSignature;
+    }
+
+    /**
+     * Builds the material signature of a set of pieces given as FEN letters, e.g. "KBk" for
+     * king and bishop against king.
+     * @throws IllegalArgumentException for a character that is not a FEN piece letter.
+     */
+    public static long materialSignature(CharSequence pieces) {
+        long signature = 0L;
+        for (int i = 0; i < pieces.length(); i++) {
+            int index = fenPieceIndex(pieces.charAt(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Not a FEN piece letter: '" + pieces.charAt(i) + "'");
+            }
+            signature += 1L << (index * SIGNATURE_BITS);
+        }
+        return signature;
+    }
+
+    private static long materialSignatureMask(char fenLetter) {
+        return 0xFL << (fenPieceIndex(fenLetter) * SIGNATURE_BITS);
+    }
+
+    /**
+     * @return Plies since the last capture or pawn move.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Counts earlier occurrences of the current position, walking back only over the plies since
+     * the last capture or pawn move: no position before those can come back.
+     * @return 0 for a new position, 2 once it has occurred three times in all.
+     */
+    public int countRepetitions() {
+        return repetitionsUpTo(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return true if the current position has occurred before; the search treats that as a draw.
+     */
+    public boolean isRepetition() {
+        return repetitionsUpTo(1) > 0;
+    }
+
+    public boolean isThreefoldRepetition() {
+        return repetitionsUpTo(2) >= 2;
+    }
+
+    /**
+     * Counts earlier occurrences of the current position, stopping once max have been found.
+     */
+    private int repetitionsUpTo(int max) {
+        int count = 0;
+        int reversiblePlies = Math.min(halfmoveClock, keyHistorySize);
+        // The same side is to move every second ply, and a position cannot repeat within two.
+        for (int back = 4; back <= reversiblePlies && count < max; back += 2) {
+            if (keyHistory[keyHistorySize - back] == zobristKey) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true once fifty moves by each side have passed without a capture or pawn move,
+     *         which lets either player claim a draw.
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * @return true once seventy-five moves by each side have passed without a capture or pawn
+     *         move, which ends the game even if nobody claims.
+     */
+    public boolean isSeventyFiveMoveDraw() {
+        return halfmoveClock >= 150;
+    }
+
+    /**
+     * Dead positions that can be recognized from the material alone: bare kings, a single minor
+     * piece against a bare king, and any number of bishops that all stand on squares of one color.
+     */
+    public boolean isInsufficientMaterial() {
+        long material = materialSignature & ~SIGNATURE_KINGS;
+        if (material == 0 || material == SIGNATURE_WHITE_KNIGHT || material == SIGNATURE_BLACK_KNIGHT) {
+            return true;
+        }
+        if ((material & ~SIGNATURE_BISHOPS) != 0) {
+            return false;
+        }
+        long bishops = pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, Piece.PieceColor.WHITE)]
+                | pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, Piece.PieceColor.BLACK)];
+        return (bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0;
+    }
+
+    /**
+     * Reports a draw by rule, assuming a draw that may be claimed is claimed. Checkmate and
+     * stalemate need the legal moves and are left to the caller, and take precedence.
+     * @return Why the game is drawn, or null if it is not.
+     */
+    public DrawReason getDrawReason() {
+        if (isInsufficientMaterial()) {
+            return DrawReason.INSUFFICIENT_MATERIAL;
+        }
+        if (isFiftyMoveDraw()) {
+            return DrawReason.FIFTY_MOVE_RULE;
+        }
+        if (isThreefoldRepetition()) {
+            return DrawReason.THREEFOLD_REPETITION;
+        }
+        return null;
     }
 
     private boolean canPlacePiece(Piece.PieceType newPieceType, Piece.PieceColor newPieceColor, int targetRow, int targetCol) {
-        Piece existingPiece = squares[targetRow][targetCol];
+        Piece existingPiece = pieceAt(targetRow, targetCol);
 
         if (existingPiece != null && existingPiece.getType() == newPieceType && existingPiece.getColor() == newPieceColor) {
             return true;
         }
 
-        int currentCount = pieceCounts.get(newPieceColor).get(newPieceType);
+        int currentCount = pieceCounts[bitboardIndex(newPieceType, newPieceColor)];
         int maxLimit;
         switch (newPieceType) {
             case KING:   maxLimit = 1; break;
@@ -138,20 +425,19 @@ public class Board {
         }
 
         if (currentCount >= maxLimit) {
-            System.out.println("Cannot place more than " + maxLimit + " " + newPieceColor + " " + newPieceType + "s.");
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("Cannot place more than " + maxLimit + " " + newPieceColor + " " + newPieceType + "s.");
+            }
             return false;
         }
         return true;
     }
 
     public void clearBoard() {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                squares[r][c] = null;
-            }
-        }
-        initializePieceCounts();
-        enPassantTargetSquare = null;
+        removeAllPieces();
+        enPassantTargetSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
 
         whiteKingMoved = false;
         blackKingMoved = false;
@@ -159,12 +445,32 @@ public class Board {
         whiteRookHMoved = false;
         blackRookAMoved = false;
         blackRookHMoved = false;
-        System.out.println("Board cleared to a blank state.");
+        zobristKey = computeZobristKey();
+        listener.onInfo("Board cleared to a blank state.");
+    }
+
+    /**
+     * Empties every square, the undo stack and the repetition history, leaving the side to move,
+     * castling flags, en passant square, move counters and Zobrist key for the caller to set.
+     */
+    private void removeAllPieces() {
+        Arrays.fill(squares, null);
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        occupied = 0L;
+        attackMapsValid = 0;
+        evaluator.clear();
+        resetPieceCounts();
+        undoSize = 0;
+        keyHistorySize = 0;
+        pendingPromotionMove = Move.NONE;
     }
 
     public boolean placePiece(String placementNotation) {
         if (!PIECE_PLACEMENT_PATTERN.matcher(placementNotation).matches()) {
-            System.out.println("Invalid placement format: '" + placementNotation + "'. Expected format like 'Nf3' (White Knight at f3) or 'kr1' (Black King at a1).");
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("Invalid placement format: '" + placementNotation + "'. Expected format like 'Nf3' (White Knight at f3) or 'kr1' (Black King at a1).");
+            }
             return false;
         }
 
@@ -192,283 +498,695 @@ public class Board {
             return false;
         }
 
-        Piece oldPiece = squares[row][col];
+        Piece oldPiece = pieceAt(row, col);
         if (oldPiece != null && (oldPiece.getType() != pieceType || oldPiece.getColor() != pieceColor)) {
             decrementPieceCount(oldPiece.getType(), oldPiece.getColor());
         }
 
-        squares[row][col] = new Piece(pieceType, pieceColor);
+        setPieceAt(row, col, Piece.of(pieceType, pieceColor));
         if (oldPiece == null || (oldPiece.getType() != pieceType || oldPiece.getColor() != pieceColor)) {
             incrementPieceCount(pieceType, pieceColor);
         }
 
-        System.out.println("Placed " + pieceColor + " " + pieceType + " at " + fileChar + rankChar + ".");
+        if (listener != BoardListener.NONE) {
+            listener.onInfo("Placed " + pieceColor + " " + pieceType + " at " + fileChar + rankChar + ".");
+        }
         return true;
     }
 
-    public void setPlayerTurn(Piece.PieceColor color) {
-        this.currentPlayerTurn = color;
+    /**
+     * @return An independent board with the same position and an empty undo stack. Moves made on
+     *         either board do not affect the other.
+     */
+    public Board copy() {
+        return new Board(this);
     }
 
-    public Piece getPiece(int row, int col) {
-        if (row < 0 || row >= 8 || col < 0 || col >= 8) {
-            System.err.println("Error: Board coordinates out of bounds [" + row + "," + col + "]");
-            return null;
+    /**
+     * Captures the current position in an immutable snapshot that can be shared between threads.
+     * @throws IllegalStateException if more than Position.MAX_PIECES pieces are on the board.
+     */
+    public Position snapshot() {
+        if (Long.bitCount(occupied) > Position.MAX_PIECES) {
+            throw new IllegalStateException("Cannot snapshot more than " + Position.MAX_PIECES + " pieces.");
         }
-        return squares[row][col];
+        long lowPieces = 0L;
+        long highPieces = 0L;
+        int n = 0;
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1, n++) {
+            long index = squares[Long.numberOfTrailingZeros(pieces)].index();
+            if (n < 16) {
+                lowPieces |= index << (4 * n);
+            } else {
+                highPieces |= index << (4 * (n - 16));
+            }
+        }
+        return new Position(occupied, lowPieces, highPieces,
+                Position.packState(currentPlayerTurn, castlingRights(), enPassantTargetSquare), zobristKey,
+                halfmoveClock, fullmoveNumber);
     }
 
-    public Board.MoveResult move(String moveNotation) {
-        ParsedMove parsedMoveDetails = parseAlgebraicNotationInternal(moveNotation);
-        if (parsedMoveDetails == null) {
-            return Board.MoveResult.INVALID;
+    /**
+     * Replaces the position with a snapshot's. The undo stack and repetition history are cleared;
+     * nothing is allocated.
+     */
+    public void loadPosition(Position position) {
+        removeAllPieces();
+        int n = 0;
+        for (long pieces = position.occupied(); pieces != 0; pieces &= pieces - 1, n++) {
+            Piece piece = Piece.of(position.pieceIndex(n));
+            setSquare(Long.numberOfTrailingZeros(pieces), piece);
+            incrementPieceCount(piece.getType(), piece.getColor());
         }
-        return movePiece(parsedMoveDetails);
+        currentPlayerTurn = position.getSideToMove();
+        setCastlingRights(position.castlingRights());
+        enPassantTargetSquare = position.getEnPassantSquare();
+        halfmoveClock = position.getHalfmoveClock();
+        fullmoveNumber = position.getFullmoveNumber();
+        zobristKey = position.getZobristKey();
     }
 
-    public ParsedMove parseAlgebraicNotation(String notation) {
-        return parseAlgebraicNotationInternal(notation);
+    public void setPlayerTurn(Piece.PieceColor color) {
+        if (color != currentPlayerTurn) {
+            switchTurn();
+        }
     }
 
-    private ParsedMove parseAlgebraicNotationInternal(String notation) {
-        if (notation == null || notation.isEmpty()) {
-            return null;
-        }
+    /**
+     * Returns the 64-bit Zobrist key of the current position: piece placement, side to move,
+     * castling flags and en passant square. Equal positions have equal keys.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
 
-        boolean isKingsideCastleNotation = CASTLE_KINGSIDE_PATTERN.matcher(notation).matches();
-        boolean isQueensideCastleNotation = CASTLE_QUEENSIDE_PATTERN.matcher(notation).matches();
+    /**
+     * Computes the Zobrist key from scratch. Only needed after bulk state changes; every move
+     * keeps zobristKey up to date incrementally.
+     */
+    long computeZobristKey() {
+        long key = 0L;
+        for (int index = 0; index < 12; index++) {
+            long pieces = pieceBitboards[index];
+            while (pieces != 0) {
+                key ^= Zobrist.PIECE_SQUARE[index][Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        if (currentPlayerTurn == Piece.PieceColor.BLACK) {
+            key ^= Zobrist.SIDE_TO_MOVE;
+        }
+        key ^= Zobrist.CASTLING[castlingRights()];
+        if (enPassantTargetSquare != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT_FILE[colOf(enPassantTargetSquare)];
+        }
+        return key;
+    }
 
-        if (isKingsideCastleNotation || isQueensideCastleNotation) {
-            int kingStartRow = (currentPlayerTurn == Piece.PieceColor.WHITE) ? 7 : 0;
-            int kingStartCol = 4; // e-file
-            int kingEndCol = isKingsideCastleNotation ? 6 : 2;
+    /**
+     * Builds a board from a FEN record.
+     * @param fen Piece placement, side to move, castling rights and en passant square; the
+     *            halfmove clock and fullmove number may be omitted.
+     * @throws IllegalArgumentException if the record is malformed.
+     * @see #loadFen(CharSequence)
+     */
+    public static Board fromFen(CharSequence fen) {
+        Board board = new Board();
+        board.loadFen(fen);
+        return board;
+    }
 
-            return new ParsedMove(kingStartRow, kingStartCol, kingStartRow, kingEndCol, isKingsideCastleNotation, isQueensideCastleNotation);
+    /**
+     * Replaces the position with the one in a FEN record, parsing it character by character
+     * straight into the board state. The undo stack is cleared. An en passant square is only
+     * kept if a pawn of the side to move can capture on it, as makeMove() does. Missing move
+     * counters default to "0 1"; earlier positions are unknown, so repetitions are only counted
+     * from here on.
+     * @throws IllegalArgumentException if the record is malformed or the position cannot occur
+     *         (not one king per side, a pawn on rank 1 or 8, the side not to move in check); the
+     *         board is then left in an unspecified state.
+     */
+    public void loadFen(CharSequence fen) {
+        removeAllPieces();
+
+        int length = fen.length();
+        int i = 0;
+
+        // 1. Piece placement, rank 8 first.
+        int rank = 7;
+        int file = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) {
+                    throw invalidFen(fen, "rank " + (rank + 1) + " does not have 8 squares");
+                }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) {
+                    throw invalidFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
+                }
+            } else {
+                int index = fenPieceIndex(c);
+                if (index < 0) {
+                    throw invalidFen(fen, "unexpected character '" + c + "' in the piece placement");
+                }
+                if (file >= 8) {
+                    throw invalidFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
+                }
+                Piece piece = Piece.of(index);
+                setSquare(rank * 8 + file, piece);
+                incrementPieceCount(piece.getType(), piece.getColor());
+                file++;
+            }
+        }
+        if (rank != 0 || file != 8) {
+            throw invalidFen(fen, "the piece placement does not cover 8 ranks of 8 squares");
         }
 
-        if (PROMOTION_NOTATION_PATTERN.matcher(notation).matches()) {
-            char startFileChar = notation.charAt(0);
-            char startRankChar = notation.charAt(1);
-            char endFileChar = notation.charAt(2);
-            char endRankChar = notation.charAt(3);
-            char promotedPieceChar = notation.charAt(4);
+        // 2. Side to move.
+        i = skipFenSeparator(fen, i);
+        char side = (i < length) ? fen.charAt(i++) : ' ';
+        if (side == 'w') {
+            currentPlayerTurn = Piece.PieceColor.WHITE;
+        } else if (side == 'b') {
+            currentPlayerTurn = Piece.PieceColor.BLACK;
+        } else {
+            throw invalidFen(fen, "the side to move must be 'w' or 'b'");
+        }
 
-            int startCol = startFileChar - 'a';
-            int startRow = 8 - Character.getNumericValue(startRankChar);
-            int endCol = endFileChar - 'a';
-            int endRow = 8 - Character.getNumericValue(endRankChar);
+        // 3. Castling rights. A missing right is stored as a moved rook (or king, if both are gone).
+        i = skipFenSeparator(fen, i);
+        boolean whiteShort = false, whiteLong = false, blackShort = false, blackLong = false;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            int start = i;
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                switch (fen.charAt(i)) {
+                    case 'K': whiteShort = true; break;
+                    case 'Q': whiteLong = true; break;
+                    case 'k': blackShort = true; break;
+                    case 'q': blackLong = true; break;
+                    default: throw invalidFen(fen, "unexpected character '" + fen.charAt(i) + "' in the castling rights");
+                }
+            }
+            if (i == start) {
+                throw invalidFen(fen, "missing castling rights");
+            }
+        }
+        setCastlingRights((whiteShort ? WHITE_SHORT : 0) | (whiteLong ? WHITE_LONG : 0)
+                | (blackShort ? BLACK_SHORT : 0) | (blackLong ? BLACK_LONG : 0));
+
+        // 4. En passant target square.
+        i = skipFenSeparator(fen, i);
+        enPassantTargetSquare = NO_SQUARE;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            char fileChar = (i < length) ? fen.charAt(i) : ' ';
+            char rankChar = (i + 1 < length) ? fen.charAt(i + 1) : ' ';
+            if (fileChar < 'a' || fileChar > 'h' || (rankChar != '3' && rankChar != '6')) {
+                throw invalidFen(fen, "the en passant square must be '-' or a square on rank 3 or 6");
+            }
+            i += 2;
+            int target = (rankChar - '1') * 8 + (fileChar - 'a');
+            long moverPawns = pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, currentPlayerTurn)];
+            int capturedColor = (currentPlayerTurn == Piece.PieceColor.WHITE) ? 1 : 0;
+            if ((Attacks.PAWN[capturedColor][target] & moverPawns) != 0) {
+                enPassantTargetSquare = target;
+            }
+        }
 
-            Piece pieceAtStart = squares[startRow][startCol];
-            if (pieceAtStart == null || pieceAtStart.getType() != Piece.PieceType.PAWN || pieceAtStart.getColor() != currentPlayerTurn) {
-                System.out.println("Invalid promotion move: No pawn of your color at starting square " + startFileChar + startRankChar + ".");
-                return null;
+        // 5./6. Optional halfmove clock and fullmove number.
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        for (int field = 0; field < 2 && i < length; field++) {
+            i = skipFenSeparator(fen, i);
+            int start = i;
+            int value = 0;
+            while (i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+                value = value * 10 + (fen.charAt(i) - '0');
+                if (value > MAX_FEN_COUNTER) {
+                    throw invalidFen(fen, "move counter out of range");
+                }
+                i++;
+            }
+            if (i == start) {
+                throw invalidFen(fen, "the move counters must be numbers");
             }
-            if (!((pieceAtStart.getColor() == Piece.PieceColor.WHITE && endRow == 0) || (pieceAtStart.getColor() == Piece.PieceColor.BLACK && endRow == 7))) {
-                System.out.println("Invalid promotion move: Pawn must reach 1st or 8th rank for promotion.");
-                return null;
+            if (field == 0) {
+                halfmoveClock = value;
+            } else {
+                fullmoveNumber = Math.max(1, value);
             }
+        }
+        if (i < length) {
+            throw invalidFen(fen, "unexpected text after the move counters");
+        }
+
+        // 7. A position the move generator can work with.
+        if (pieceCounts[bitboardIndex(Piece.PieceType.KING, Piece.PieceColor.WHITE)] != 1
+                || pieceCounts[bitboardIndex(Piece.PieceType.KING, Piece.PieceColor.BLACK)] != 1) {
+            throw invalidFen(fen, "each side must have exactly one king");
+        }
+        long pawns = pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, Piece.PieceColor.WHITE)]
+                | pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, Piece.PieceColor.BLACK)];
+        if ((pawns & BACK_RANKS) != 0) {
+            throw invalidFen(fen, "pawns cannot stand on rank 1 or 8");
+        }
+        Piece.PieceColor waiting = (currentPlayerTurn == Piece.PieceColor.WHITE) ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE;
+        if (isSquareAttacked(kingSquare(waiting), currentPlayerTurn)) {
+            throw invalidFen(fen, "the side not to move is in check");
+        }
+
+        zobristKey = computeZobristKey();
+    }
 
-            Piece.PieceType promotionType;
-            switch (promotedPieceChar) {
-                case 'Q': promotionType = Piece.PieceType.QUEEN; break;
-                case 'R': promotionType = Piece.PieceType.ROOK; break;
-                case 'B': promotionType = Piece.PieceType.BISHOP; break;
-                case 'N': promotionType = Piece.PieceType.KNIGHT; break;
-                default: return null;
+    /**
+     * Writes the position as a FEN record, move counters included.
+     * @param out Where to append the record, e.g. a StringBuilder or a Writer.
+     */
+    public void toFen(Appendable out) throws IOException {
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                Piece piece = squares[rank * 8 + file];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(piece.getLetter());
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
             }
+            if (rank > 0) {
+                out.append('/');
+            }
+        }
 
-            ParsedMove parsedMove = new ParsedMove(startRow, startCol, endRow, endCol);
-            parsedMove.promotionType = promotionType;
-            return parsedMove;
+        out.append(' ').append(currentPlayerTurn == Piece.PieceColor.WHITE ? 'w' : 'b').append(' ');
+
+        boolean anyCastling = false;
+        if (canCastleFen(Piece.PieceColor.WHITE, true)) { out.append('K'); anyCastling = true; }
+        if (canCastleFen(Piece.PieceColor.WHITE, false)) { out.append('Q'); anyCastling = true; }
+        if (canCastleFen(Piece.PieceColor.BLACK, true)) { out.append('k'); anyCastling = true; }
+        if (canCastleFen(Piece.PieceColor.BLACK, false)) { out.append('q'); anyCastling = true; }
+        if (!anyCastling) {
+            out.append('-');
         }
 
-        if (PAWN_CAPTURE_NOTATION_PATTERN.matcher(notation).matches()) {
-            char startFileChar = notation.charAt(0);
-            char endFileChar = notation.charAt(2);
-            char endRankChar = notation.charAt(3);
+        out.append(' ');
+        if (enPassantTargetSquare == NO_SQUARE) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + colOf(enPassantTargetSquare))).append((char) ('1' + (enPassantTargetSquare >>> 3)));
+        }
+        out.append(' ');
+        appendNumber(out, halfmoveClock);
+        out.append(' ');
+        appendNumber(out, fullmoveNumber);
+    }
 
-            int startCol = startFileChar - 'a';
-            int endCol = endFileChar - 'a';
-            int endRow = 8 - Character.getNumericValue(endRankChar);
+    // Writes digit by digit; Integer.toString() would allocate a String per counter.
+    private static void appendNumber(Appendable out, int value) throws IOException {
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
 
-            int startRow;
-            if (currentPlayerTurn == Piece.PieceColor.WHITE) {
-                startRow = endRow + 1;
-            } else {
-                startRow = endRow - 1;
-            }
+    /**
+     * @return The position as a FEN record.
+     * @see #toFen(Appendable)
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(90);
+        try {
+            toFen(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw.
+        }
+        return sb.toString();
+    }
 
-            Piece pieceAtStart = squares[startRow][startCol];
-            if (pieceAtStart == null || pieceAtStart.getType() != Piece.PieceType.PAWN || pieceAtStart.getColor() != currentPlayerTurn) {
-                System.out.println("Invalid pawn capture: No pawn found at " + startFileChar + (8-startRow) + " to make this capture.");
-                return null;
+    private static int fenPieceIndex(char c) {
+        for (int index = 0; index < 12; index++) {
+            if (Piece.of(index).getLetter() == c) {
+                return index;
             }
+        }
+        return -1;
+    }
+
+    /**
+     * A castling right is written only if the flags allow it and king and rook are still on
+     * their home squares.
+     */
+    private boolean canCastleFen(Piece.PieceColor color, boolean kingside) {
+        boolean white = (color == Piece.PieceColor.WHITE);
+        int right = white ? (kingside ? WHITE_SHORT : WHITE_LONG) : (kingside ? BLACK_SHORT : BLACK_LONG);
+        if ((castlingRights() & right) == 0) {
+            return false;
+        }
+        int kingSquare = white ? 4 : 60;
+        int rookSquare = white ? (kingside ? H1 : A1) : (kingside ? H8 : A8);
+        long kings = pieceBitboards[bitboardIndex(Piece.PieceType.KING, color)];
+        long rooks = pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, color)];
+        return (kings & (1L << kingSquare)) != 0 && (rooks & (1L << rookSquare)) != 0;
+    }
+
+    private static int skipFenSeparator(CharSequence fen, int i) {
+        if (i >= fen.length() || fen.charAt(i) != ' ') {
+            throw invalidFen(fen, "expected a space at position " + i);
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
 
-            return new ParsedMove(startRow, startCol, endRow, endCol);
+    private static IllegalArgumentException invalidFen(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN '" + fen + "': " + reason + ".");
+    }
+
+    /**
+     * Static evaluation of the position from the side to move's point of view, in centipawns:
+     * material and piece-square tables, tapered between middlegame and endgame. O(1), since
+     * the sums are updated with every change to the board.
+     */
+    public int evaluate() {
+        return evaluator.evaluate(currentPlayerTurn);
+    }
+
+    public Piece getPiece(int row, int col) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 8) {
+            listener.onError("Error: Board coordinates out of bounds [" + row + "," + col + "]");
+            return null;
         }
+        return pieceAt(row, col);
+    }
 
-        if (PAWN_PUSH_NOTATION_PATTERN.matcher(notation).matches()) {
-            char endFileChar = notation.charAt(0);
-            char endRankChar = notation.charAt(1);
+    /**
+     * Returns the bitboard of all pieces of the given type and color (bit 0 = a1, bit 63 = h8).
+     */
+    public long getPieceBitboard(Piece.PieceType type, Piece.PieceColor color) {
+        return pieceBitboards[bitboardIndex(type, color)];
+    }
 
-            int endCol = endFileChar - 'a';
-            int endRow = 8 - Character.getNumericValue(endRankChar);
+    /**
+     * Returns the bitboard of all squares occupied by the given color.
+     */
+    public long getOccupancy(Piece.PieceColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
 
-            List<int[]> candidateSources = new ArrayList<>();
-            int pawnDirection = (currentPlayerTurn == Piece.PieceColor.WHITE) ? -1 : 1;
+    /**
+     * Returns the bitboard of all occupied squares.
+     */
+    public long getOccupiedSquares() {
+        return occupied;
+    }
 
-            int candidateRow1 = endRow - pawnDirection;
-            if (candidateRow1 >= 0 && candidateRow1 < 8) {
-                Piece pieceAtSource = squares[candidateRow1][endCol];
-                if (pieceAtSource != null && pieceAtSource.getType() == Piece.PieceType.PAWN && pieceAtSource.getColor() == currentPlayerTurn) {
-                    if (isValidMoveAttempt(new ParsedMove(candidateRow1, endCol, endRow, endCol))) {
-                        candidateSources.add(new int[]{candidateRow1, endCol});
-                    }
+    public Board.MoveResult move(String moveNotation) {
+        ParsedMove parsedMoveDetails = parseAlgebraicNotationInternal(moveNotation);
+        if (parsedMoveDetails == null) {
+            return Board.MoveResult.INVALID;
+        }
+        return movePiece(parsedMoveDetails);
+    }
+
+    public ParsedMove parseAlgebraicNotation(String notation) {
+        return parseAlgebraicNotationInternal(notation);
+    }
+
+    /**
+     * Resolves a move against the legal moves of the current position. Accepts full SAN
+     * ("Nf3", "Nbxd7", "exd8=Q+", "O-O") and coordinate notation as used by UCI ("e2e4",
+     * "e7e8q"). Parsing is a single pass over the characters and allocates nothing on success.
+     * @param notation The move; check marks and annotation glyphs are ignored.
+     * @return The encoded legal move, or Move.NONE if the notation is malformed, illegal,
+     *         ambiguous or a pawn move to the last rank without a promotion piece.
+     */
+    public int parseMove(CharSequence notation) {
+        int move = resolveNotation(notation);
+        if (move < 0) {
+            reportUnresolved(notation, move);
+            return Move.NONE;
+        }
+        if (isPromotionWithoutPiece(move)) {
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("Invalid move: '" + notation + "' needs a promotion piece (Q, R, B or N).");
+            }
+            return Move.NONE;
+        }
+        return move;
+    }
+
+    private ParsedMove parseAlgebraicNotationInternal(String notation) {
+        if (notation == null || notation.isEmpty()) {
+            return null;
+        }
+        int move = resolveNotation(notation);
+        if (move < 0) {
+            if (move == UNRESOLVED_ILLEGAL) {
+                // Coordinates and castling still go to movePiece(), which explains why the move
+                // is illegal.
+                ParsedMove parsedMove = parseUnresolvedMove(notation);
+                if (parsedMove != null) {
+                    return parsedMove;
                 }
             }
+            reportUnresolved(notation, move);
+            return null;
+        }
+        // A pawn reaching the last rank without a piece gets a null promotionType, so movePiece()
+        // asks for it.
+        return Move.toParsedMove(move);
+    }
+
+    // Negative results of resolveNotation().
+    private static final int UNRESOLVED_MALFORMED = -1;
+    private static final int UNRESOLVED_ILLEGAL = -2;
+    private static final int UNRESOLVED_AMBIGUOUS = -3;
+
+    /**
+     * The single-pass parser behind parseMove() and move(). A pawn move to the last rank without
+     * a promotion piece resolves to the queen promotion with its promotion flags cleared.
+     * @return The move, or one of the negative UNRESOLVED_ codes.
+     */
+    private int resolveNotation(CharSequence notation) {
+        int end = notation.length();
+        while (end > 0 && isSanSuffix(notation.charAt(end - 1))) {
+            end--;
+        }
 
-            int candidateRow2 = endRow - (pawnDirection * 2);
-            if ((currentPlayerTurn == Piece.PieceColor.WHITE && candidateRow2 == 6) || (currentPlayerTurn == Piece.PieceColor.BLACK && candidateRow2 == 1)) {
-                Piece pieceAtSource = squares[candidateRow2][endCol];
-                if (pieceAtSource != null && pieceAtSource.getType() == Piece.PieceType.PAWN && pieceAtSource.getColor() == currentPlayerTurn) {
-                    if (isValidMoveAttempt(new ParsedMove(candidateRow2, endCol, endRow, endCol))) {
-                        candidateSources.add(new int[]{candidateRow2, endCol});
+        int castleFlags = castleFlagsOf(notation, end);
+        Piece.PieceType pieceType = null;
+        Piece.PieceType promotionType = null;
+        int fromFile = -1;
+        int fromRank = -1;
+        int to = NO_SQUARE;
+
+        if (castleFlags < 0) {
+            int i = 0;
+            if (end > 0) {
+                pieceType = pieceTypeOf(notation.charAt(0));
+                if (pieceType != null) {
+                    i = 1;
+                }
+            }
+            // Promotion: "e8=Q", "e8Q" or "e7e8q".
+            if (end - i >= 3 && pieceType == null) {
+                char pieceChar = notation.charAt(end - 1);
+                char before = notation.charAt(end - 2);
+                if (before == '=' || isRankChar(before)) {
+                    promotionType = promotionTypeOf(Character.toUpperCase(pieceChar));
+                    if (promotionType != null) {
+                        end -= (before == '=') ? 2 : 1;
+                    } else if (before == '=') {
+                        return UNRESOLVED_MALFORMED;
                     }
                 }
             }
+            if (end - i < 2 || !isFileChar(notation.charAt(end - 2)) || !isRankChar(notation.charAt(end - 1))) {
+                return UNRESOLVED_MALFORMED;
+            }
+            to = (notation.charAt(end - 1) - '1') * 8 + (notation.charAt(end - 2) - 'a');
+            // Whatever sits between piece and destination: a file, a rank, both, and capture or
+            // long-algebraic separators.
+            for (int j = i; j < end - 2; j++) {
+                char c = notation.charAt(j);
+                if (isFileChar(c) && fromFile < 0 && fromRank < 0) {
+                    fromFile = c - 'a';
+                } else if (isRankChar(c) && fromRank < 0) {
+                    fromRank = c - '1';
+                } else if (c != 'x' && c != '-' && c != ':') {
+                    return UNRESOLVED_MALFORMED;
+                }
+            }
+            if (pieceType == null && (fromFile < 0 || fromRank < 0)) {
+                pieceType = Piece.PieceType.PAWN;
+            }
+        }
 
-            if (candidateSources.size() == 1) {
-                int[] source = candidateSources.get(0);
-                return new ParsedMove(source[0], source[1], endRow, endCol);
-            } else if (candidateSources.isEmpty()) {
-                System.out.println("Invalid pawn push: No pawn can move to " + notation + ".");
-                return null;
+        int moveCount = generateLegalMoves(moveBuffer);
+        int found = Move.NONE;
+        int matches = 0;
+        for (int k = 0; k < moveCount; k++) {
+            int move = moveBuffer[k];
+            int from = Move.from(move);
+            if (castleFlags >= 0) {
+                if (Move.flags(move) != castleFlags) {
+                    continue;
+                }
             } else {
-                System.out.println("Invalid pawn push: Ambiguous move to " + notation + ". Multiple pawns can move here.");
-                return null;
-            }
-        }
-
-        if (FULL_MOVE_NOTATION_PATTERN.matcher(notation).matches()) {
-            char startFileChar = notation.charAt(0);
-            char startRankChar = notation.charAt(1);
-            char endFileChar = notation.charAt(2);
-            char endRankChar = notation.charAt(3);
-
-            int startCol = startFileChar - 'a';
-            int startRow = 8 - Character.getNumericValue(startRankChar);
-            int endCol = endFileChar - 'a';
-            int endRow = 8 - Character.getNumericValue(endRankChar);
-            return new ParsedMove(startRow, startCol, endRow, endCol);
-        }
-
-        Matcher fileDisambiguatorMatcher = DISAMBIGUATED_FILE_MOVE_PATTERN.matcher(notation);
-        Matcher rankDisambiguatorMatcher = DISAMBIGUATED_RANK_MOVE_PATTERN.matcher(notation);
-
-        if (fileDisambiguatorMatcher.matches() || rankDisambiguatorMatcher.matches()) {
-            char pieceChar = notation.charAt(0);
-            char disambiguatorChar = notation.charAt(1);
-            char endFileChar = notation.charAt(2);
-            char endRankChar = notation.charAt(3);
-
-            Piece.PieceType targetPieceType;
-            switch (pieceChar) {
-                case 'N': targetPieceType = Piece.PieceType.KNIGHT; break;
-                case 'B': targetPieceType = Piece.PieceType.BISHOP; break;
-                case 'R': targetPieceType = Piece.PieceType.ROOK; break;
-                case 'Q': targetPieceType = Piece.PieceType.QUEEN; break;
-                case 'K': targetPieceType = Piece.PieceType.KING; break;
-                default: return null;
-            }
-
-            int endCol = endFileChar - 'a';
-            int endRow = 8 - Character.getNumericValue(endRankChar);
-
-            List<int[]> candidateSources = new ArrayList<>();
-
-            for (int sr = 0; sr < 8; sr++) {
-                for (int sc = 0; sc < 8; sc++) {
-                    Piece piece = squares[sr][sc];
-                    if (piece != null && piece.getColor() == currentPlayerTurn && piece.getType() == targetPieceType) {
-                        boolean disambiguatorMatches = false;
-                        if (Character.isLetter(disambiguatorChar)) { // Disambiguation by file
-                            if ((disambiguatorChar - 'a') == sc) {
-                                disambiguatorMatches = true;
-                            }
-                        } else if (Character.isDigit(disambiguatorChar)) { // Disambiguation by rank
-                            if ((8 - Character.getNumericValue(disambiguatorChar)) == sr) {
-                                disambiguatorMatches = true;
-                            }
-                        }
-
-                        if (disambiguatorMatches) {
-                            ParsedMove tempParsedMove = new ParsedMove(sr, sc, endRow, endCol);
-                            if (isValidMoveAttempt(tempParsedMove)) {
-                                candidateSources.add(new int[]{sr, sc});
-                            }
+                if (Move.to(move) != to
+                        || (fromFile >= 0 && colOf(from) != fromFile)
+                        || (fromRank >= 0 && (from >>> 3) != fromRank)
+                        || (pieceType != null && squares[from].getType() != pieceType)) {
+                    continue;
+                }
+                if (Move.isPromotion(move)) {
+                    if (promotionType == null) {
+                        // Count each promotion square once and leave the piece open.
+                        if (Move.promotionType(move) != Piece.PieceType.QUEEN) {
+                            continue;
                         }
+                        move = Move.encode(from, to, Move.flags(move) & Move.CAPTURE);
+                    } else if (Move.promotionType(move) != promotionType) {
+                        continue;
                     }
+                } else if (promotionType != null) {
+                    continue;
                 }
             }
+            found = move;
+            matches++;
+        }
+        if (matches == 0) {
+            return UNRESOLVED_ILLEGAL;
+        }
+        return (matches == 1) ? found : UNRESOLVED_AMBIGUOUS;
+    }
 
-            if (candidateSources.isEmpty()) {
-                System.out.println("Invalid move: No " + targetPieceType + " from " + disambiguatorChar + " can legally move to " + endFileChar + endRankChar + ".");
-                return null;
-            } else if (candidateSources.size() > 1) {
-                System.out.println("Invalid move: Still ambiguous " + targetPieceType + " move to " + endFileChar + endRankChar + " even with disambiguator " + disambiguatorChar + ".");
-                return null;
-            } else {
-                int[] source = candidateSources.get(0);
-                return new ParsedMove(source[0], source[1], endRow, endCol);
+    private void reportUnresolved(CharSequence notation, int code) {
+        if (listener == BoardListener.NONE) {
+            return;
+        }
+        switch (code) {
+            case UNRESOLVED_ILLEGAL:
+                listener.onInfo("Invalid move: '" + notation + "' is not a legal move for " + currentPlayerTurn + ".");
+                break;
+            case UNRESOLVED_AMBIGUOUS:
+                listener.onInfo("Invalid move: '" + notation + "' is ambiguous. Please specify starting file or rank (e.g., 'Nbd7' or 'N1d7').");
+                break;
+            default:
+                listener.onInfo("Invalid move format: '" + notation + "'. Please use 'e2e4', 'Nf3', 'Nbd7', or 'N1d7' format.");
+        }
+    }
+
+    /**
+     * Builds the ParsedMove for coordinate or castling notation without checking legality.
+     * @return The move, or null for any other notation.
+     */
+    private ParsedMove parseUnresolvedMove(String notation) {
+        int end = notation.length();
+        while (end > 0 && isSanSuffix(notation.charAt(end - 1))) {
+            end--;
+        }
+        int castleFlags = castleFlagsOf(notation, end);
+        if (castleFlags >= 0) {
+            int kingRow = (currentPlayerTurn == Piece.PieceColor.WHITE) ? 7 : 0;
+            boolean kingside = (castleFlags == Move.KING_CASTLE);
+            return new ParsedMove(kingRow, 4, kingRow, kingside ? 6 : 2, kingside, !kingside);
+        }
+        if ((end == 4 || end == 5) && isFileChar(notation.charAt(0)) && isRankChar(notation.charAt(1))
+                && isFileChar(notation.charAt(2)) && isRankChar(notation.charAt(3))) {
+            ParsedMove parsedMove = new ParsedMove('8' - notation.charAt(1), notation.charAt(0) - 'a',
+                    '8' - notation.charAt(3), notation.charAt(2) - 'a');
+            if (end == 5) {
+                parsedMove.promotionType = promotionTypeOf(Character.toUpperCase(notation.charAt(4)));
+                if (parsedMove.promotionType == null) {
+                    return null;
+                }
             }
+            return parsedMove;
         }
+        return null;
+    }
 
-        if (SHORTENED_PIECE_MOVE_PATTERN.matcher(notation).matches()) {
-            char pieceChar = notation.charAt(0);
-            char endFileChar = notation.charAt(1);
-            char endRankChar = notation.charAt(2);
+    /**
+     * @return true for a pawn move to the last rank that carries no promotion piece.
+     */
+    private boolean isPromotionWithoutPiece(int move) {
+        int to = Move.to(move);
+        return !Move.isPromotion(move) && squares[Move.from(move)].getType() == Piece.PieceType.PAWN
+                && (to < 8 || to >= 56);
+    }
 
-            Piece.PieceType targetPieceType;
-            switch (pieceChar) {
-                case 'N': targetPieceType = Piece.PieceType.KNIGHT; break;
-                case 'B': targetPieceType = Piece.PieceType.BISHOP; break;
-                case 'R': targetPieceType = Piece.PieceType.ROOK; break;
-                case 'Q': targetPieceType = Piece.PieceType.QUEEN; break;
-                case 'K': targetPieceType = Piece.PieceType.KING; break;
-                default: return null;
+    /**
+     * @return KING_CASTLE or QUEEN_CASTLE for "O-O"/"0-0" and "O-O-O"/"0-0-0" in the first end
+     *         characters, otherwise -1.
+     */
+    private static int castleFlagsOf(CharSequence notation, int end) {
+        if (end != 3 && end != 5) {
+            return -1;
+        }
+        char o = notation.charAt(0);
+        if (o != 'O' && o != '0') {
+            return -1;
+        }
+        for (int i = 1; i < end; i++) {
+            char expected = (i % 2 == 1) ? '-' : o;
+            if (notation.charAt(i) != expected) {
+                return -1;
             }
+        }
+        return (end == 3) ? Move.KING_CASTLE : Move.QUEEN_CASTLE;
+    }
 
-            int endCol = endFileChar - 'a';
-            int endRow = 8 - Character.getNumericValue(endRankChar);
+    private static boolean isSanSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
 
-            List<int[]> candidateSources = new ArrayList<>();
+    private static boolean isFileChar(char c) {
+        return c >= 'a' && c <= 'h';
+    }
 
-            for (int sr = 0; sr < 8; sr++) {
-                for (int sc = 0; sc < 8; sc++) {
-                    Piece piece = squares[sr][sc];
-                    if (piece != null && piece.getColor() == currentPlayerTurn && piece.getType() == targetPieceType) {
-                        ParsedMove tempParsedMove = new ParsedMove(sr, sc, endRow, endCol);
-                        if (isValidMoveAttempt(tempParsedMove)) {
-                            candidateSources.add(new int[]{sr, sc});
-                        }
-                    }
-                }
-            }
+    private static boolean isRankChar(char c) {
+        return c >= '1' && c <= '8';
+    }
 
-            if (candidateSources.isEmpty()) {
-                System.out.println("Invalid move: No " + targetPieceType + " can legally move to " + endFileChar + endRankChar + ".");
-                return null;
-            } else if (candidateSources.size() > 1) {
-                System.out.println("Invalid move: Ambiguous " + targetPieceType + " move to " + endFileChar + endRankChar + ". Please specify starting file or rank (e.g., 'Nbd7' or 'N1d7').");
-                return null;
-            } else {
-                int[] source = candidateSources.get(0);
-                return new ParsedMove(source[0], source[1], endRow, endCol);
-            }
+    private static Piece.PieceType pieceTypeOf(char pieceChar) {
+        switch (pieceChar) {
+            case 'K': return Piece.PieceType.KING;
+            case 'Q': return Piece.PieceType.QUEEN;
+            case 'R': return Piece.PieceType.ROOK;
+            case 'B': return Piece.PieceType.BISHOP;
+            case 'N': return Piece.PieceType.KNIGHT;
+            default: return null;
         }
+    }
 
-        System.out.println("Invalid move format: '" + notation + "'. Please use 'e2e4', 'Nf3', 'Nbd7', or 'N1d7' format.");
-        return null;
+    private static Piece.PieceType promotionTypeOf(char pieceChar) {
+        switch (pieceChar) {
+            case 'Q': return Piece.PieceType.QUEEN;
+            case 'R': return Piece.PieceType.ROOK;
+            case 'B': return Piece.PieceType.BISHOP;
+            case 'N': return Piece.PieceType.KNIGHT;
+            default: return null;
+        }
     }
 
     /**
@@ -482,11 +1200,11 @@ public class Board {
         int endRow = parsedMove.endRow;
         int endCol = parsedMove.endCol;
 
-        Piece pieceToMove = squares[startRow][startCol];
-        Piece pieceAtEnd = squares[endRow][endCol];
+        Piece pieceToMove = pieceAt(startRow, startCol);
+        Piece pieceAtEnd = pieceAt(endRow, endCol);
 
         if (pieceToMove == null || pieceToMove.getColor() != currentPlayerTurn) {
-            System.out.println("Invalid move: Piece at start square is not valid for current turn.");
+            listener.onInfo("Invalid move: Piece at start square is not valid for current turn.");
             return Board.MoveResult.INVALID;
         }
 
@@ -494,163 +1212,150 @@ public class Board {
             return Board.MoveResult.INVALID;
         }
 
-        boolean isEnPassantCapture = false;
-        Piece capturedPawnByEnPassant = null;
-        int capturedPawnByEnPassantRow = -1;
-        int capturedPawnByEnPassantCol = -1;
-
-        if (pieceToMove.getType() == Piece.PieceType.PAWN && Math.abs(startCol - endCol) == 1 && squares[endRow][endCol] == null) {
-            if (enPassantTargetSquare != null && endRow == enPassantTargetSquare[0] && endCol == enPassantTargetSquare[1]) {
-                isEnPassantCapture = true;
-                capturedPawnByEnPassantRow = (pieceToMove.getColor() == Piece.PieceColor.WHITE) ? endRow + 1 : endRow - 1;
-                capturedPawnByEnPassantCol = endCol;
-                capturedPawnByEnPassant = squares[capturedPawnByEnPassantRow][capturedPawnByEnPassantCol];
-            }
-        }
+        int move = encodeMove(parsedMove);
+        int flags = Move.flags(move);
+        boolean isPromotionMove = (pieceToMove.getType() == Piece.PieceType.PAWN &&
+                ((pieceToMove.getColor() == Piece.PieceColor.WHITE && endRow == 0) ||
+                        (pieceToMove.getColor() == Piece.PieceColor.BLACK && endRow == 7)));
 
-        if (isEnPassantCapture) {
-            if (capturedPawnByEnPassant != null && capturedPawnByEnPassant.getType() == Piece.PieceType.PAWN && capturedPawnByEnPassant.getColor() != pieceToMove.getColor()) {
-                squares[capturedPawnByEnPassantRow][capturedPawnByEnPassantCol] = null;
-                decrementPieceCount(capturedPawnByEnPassant.getType(), capturedPawnByEnPassant.getColor());
-                System.out.println("En Passant capture!");
-            } else {
-                System.err.println("Error: En Passant confirmed but no valid pawn to capture at " + (char)('a'+capturedPawnByEnPassantCol) + (char)('1'+(7-capturedPawnByEnPassantRow)));
-                return Board.MoveResult.INVALID;
+        if (isPromotionMove && parsedMove.promotionType == null) {
+            // Play the pawn move now but keep the turn until finalizePromotion() supplies the piece.
+            makeMove(move);
+            switchTurn();
+            pendingPromotionMove = move;
+            if (listener != BoardListener.NONE) {
+                listener.onInfo(pieceToMove.getColor() + " Pawn reached promotion square " + (char)('a'+endCol) + (char)('1'+(7-endRow)) + "!");
             }
-        } else if (pieceAtEnd != null) {
-            decrementPieceCount(pieceAtEnd.getType(), pieceAtEnd.getColor());
+            return Board.MoveResult.PROMOTION_PENDING;
         }
 
-        squares[endRow][endCol] = pieceToMove;
-        squares[startRow][startCol] = null;
-
-        if (parsedMove.isKingsideCastle || parsedMove.isQueensideCastle) {
-            int rookStartCol = parsedMove.isKingsideCastle ? 7 : 0;
-            int rookEndCol = parsedMove.isKingsideCastle ? 5 : 3;
-            squares[endRow][rookEndCol] = squares[endRow][rookStartCol];
-            squares[endRow][rookStartCol] = null;
-            System.out.println("Castling performed!");
+        makeMove(move);
+        if (listener == BoardListener.NONE) {
+            return Board.MoveResult.VALID;
         }
 
-        if (pieceToMove.getType() == Piece.PieceType.KING) {
-            if (pieceToMove.getColor() == Piece.PieceColor.WHITE) whiteKingMoved = true;
-            else blackKingMoved = true;
-        } else if (pieceToMove.getType() == Piece.PieceType.ROOK) {
-            if (pieceToMove.getColor() == Piece.PieceColor.WHITE) {
-                if (startCol == 0 && startRow == 7) whiteRookAMoved = true;
-                if (startCol == 7 && startRow == 7) whiteRookHMoved = true;
-            } else {
-                if (startCol == 0 && startRow == 0) blackRookAMoved = true;
-                if (startCol == 7 && startRow == 0) blackRookHMoved = true;
-            }
+        if (flags == Move.EN_PASSANT) {
+            listener.onInfo("En Passant capture!");
+        } else if (flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE) {
+            listener.onInfo("Castling performed!");
         }
 
-        boolean isPromotionMove = (pieceToMove.getType() == Piece.PieceType.PAWN &&
-                ((pieceToMove.getColor() == Piece.PieceColor.WHITE && endRow == 0) ||
-                        (pieceToMove.getColor() == Piece.PieceColor.BLACK && endRow == 7)));
-
         if (isPromotionMove) {
-            if (parsedMove.promotionType != null) {
-                finalizePromotion(endRow, endCol, parsedMove.promotionType);
-                return Board.MoveResult.VALID;
-            } else {
-                System.out.println(pieceToMove.getColor() + " Pawn reached promotion square " + (char)('a'+endCol) + (char)('1'+(7-endRow)) + "!");
-                return Board.MoveResult.PROMOTION_PENDING;
-            }
+            listener.onInfo(pieceToMove.getColor() + " Pawn promoted to " + parsedMove.promotionType + "!");
+            listener.onInfo("Turn switched to " + currentPlayerTurn + ".");
         } else {
-            switchTurn();
-            System.out.println("Move successful! Now it's " + currentPlayerTurn + "'s turn.");
-            return Board.MoveResult.VALID;
+            listener.onInfo("Move successful! Now it's " + currentPlayerTurn + "'s turn.");
         }
+        return Board.MoveResult.VALID;
     }
 
     public void finalizePromotion(int promotionRow, int promotionCol, Piece.PieceType chosenType) {
-        Piece promotingPawn = squares[promotionRow][promotionCol];
+        Piece promotingPawn = pieceAt(promotionRow, promotionCol);
         if (promotingPawn == null || promotingPawn.getType() != Piece.PieceType.PAWN) {
-            System.err.println("Error: No pawn found at promotion square or not a pawn.");
+            listener.onError("Error: No pawn found at promotion square or not a pawn.");
             return;
         }
 
-        decrementPieceCount(Piece.PieceType.PAWN, promotingPawn.getColor());
-        squares[promotionRow][promotionCol] = new Piece(chosenType, promotingPawn.getColor());
-        incrementPieceCount(chosenType, promotingPawn.getColor());
-        System.out.println(promotingPawn.getColor() + " Pawn promoted to " + chosenType + "!");
-        switchTurn();
-        System.out.println("Turn switched to " + currentPlayerTurn + ".");
+        int promotionSquare = toSquare(promotionRow, promotionCol);
+        if (pendingPromotionMove != Move.NONE && Move.to(pendingPromotionMove) == promotionSquare) {
+            // Replay the pending pawn move as a real promotion so it can be unmade like any other move.
+            int pawnMove = pendingPromotionMove;
+            pendingPromotionMove = Move.NONE;
+            switchTurn();
+            unmakeMove();
+            int flags = Move.flags(pawnMove) | Move.PROMOTION | Move.promotionCode(chosenType);
+            makeMove(Move.encode(Move.from(pawnMove), promotionSquare, flags));
+        } else {
+            decrementPieceCount(Piece.PieceType.PAWN, promotingPawn.getColor());
+            setPieceAt(promotionRow, promotionCol, Piece.of(chosenType, promotingPawn.getColor()));
+            incrementPieceCount(chosenType, promotingPawn.getColor());
+            switchTurn();
+        }
+        if (listener != BoardListener.NONE) {
+            listener.onInfo(promotingPawn.getColor() + " Pawn promoted to " + chosenType + "!");
+            listener.onInfo("Turn switched to " + currentPlayerTurn + ".");
+        }
+    }
+
+    /**
+     * Converts a ParsedMove into an encoded {@link Move} for the current position. The castle,
+     * en passant, double push, capture and promotion flags are read off the board, so a castle
+     * given as "e1g1" encodes the same as "O-O".
+     * @param parsedMove The move in row/column form.
+     * @return The encoded move.
+     */
+    public int encodeMove(ParsedMove parsedMove) {
+        return encodeMove(parsedMove.startRow, parsedMove.startCol, parsedMove.endRow, parsedMove.endCol, parsedMove.promotionType);
     }
 
+    private int encodeMove(int startRow, int startCol, int endRow, int endCol, Piece.PieceType promotionType) {
+        int from = toSquare(startRow, startCol);
+        int to = toSquare(endRow, endCol);
+        Piece piece = squares[from];
+        Piece target = squares[to];
+        int colDiff = endCol - startCol;
 
-    private boolean isPathClear(int startRow, int startCol, int endRow, int endCol) {
-        int rowDir = Integer.compare(endRow, startRow);
-        int colDir = Integer.compare(endCol, startCol);
-        int currentRow = startRow + rowDir;
-        int currentCol = startCol + colDir;
-        while (currentRow != endRow || currentCol != endCol) {
-            if (squares[currentRow][currentCol] != null) {
-                return false;
+        int flags = (target != null) ? Move.CAPTURE : Move.QUIET;
+        if (piece == null) {
+            return Move.encode(from, to, flags);
+        }
+        if (piece.getType() == Piece.PieceType.KING && startRow == endRow && Math.abs(colDiff) == 2) {
+            flags = (colDiff > 0) ? Move.KING_CASTLE : Move.QUEEN_CASTLE;
+        } else if (piece.getType() == Piece.PieceType.PAWN) {
+            if (colDiff != 0 && target == null && to == enPassantTargetSquare) {
+                flags = Move.EN_PASSANT;
+            } else if (Math.abs(endRow - startRow) == 2) {
+                flags = Move.DOUBLE_PAWN_PUSH;
+            } else if (promotionType != null && (endRow == 0 || endRow == 7)) {
+                flags |= Move.PROMOTION | Move.promotionCode(promotionType);
             }
-            currentRow += rowDir;
-            currentCol += colDir;
         }
-        return true;
+        return Move.encode(from, to, flags);
     }
 
-    private boolean isValidPieceMove(ParsedMove parsedMove) {
-        int startRow = parsedMove.startRow;
-        int startCol = parsedMove.startCol;
-        int endRow = parsedMove.endRow;
-        int endCol = parsedMove.endCol;
-        Piece piece = squares[startRow][startCol];
+    private boolean isPathClear(int startRow, int startCol, int endRow, int endCol) {
+        return (Attacks.BETWEEN[toSquare(startRow, startCol)][toSquare(endRow, endCol)] & occupied) == 0;
+    }
+
+    private boolean isValidPieceMove(int startRow, int startCol, int endRow, int endCol) {
+        Piece piece = pieceAt(startRow, startCol);
         if (piece == null) return false;
 
-        int rowDiff = Math.abs(endRow - startRow);
-        int colDiff = Math.abs(endCol - startCol);
-        int rowDir = Integer.compare(endRow, startRow);
-        int colDir = Integer.compare(endCol, startCol);
+        int from = toSquare(startRow, startCol);
+        long target = 1L << toSquare(endRow, endCol);
 
         switch (piece.getType()) {
             case PAWN:
-                if (colDiff == 0) {
-                    if (piece.getColor() == Piece.PieceColor.WHITE && rowDir == -1) {
-                        if (rowDiff == 1) return true;
-                        if (rowDiff == 2 && startRow == 6 && squares[startRow-1][startCol] == null) return true;
-                    } else if (piece.getColor() == Piece.PieceColor.BLACK && rowDir == 1) {
+                if (startCol == endCol) {
+                    int rowDiff = endRow - startRow;
+                    if (piece.getColor() == Piece.PieceColor.WHITE) {
+                        if (rowDiff == -1) return true;
+                        if (rowDiff == -2 && startRow == 6 && pieceAt(startRow-1, startCol) == null) return true;
+                    } else {
                         if (rowDiff == 1) return true;
-                        if (rowDiff == 2 && startRow == 1 && squares[startRow+1][startCol] == null) return true;
+                        if (rowDiff == 2 && startRow == 1 && pieceAt(startRow+1, startCol) == null) return true;
                     }
+                    return false;
                 }
-                else if (colDiff == 1 && rowDiff == 1) {
-                    if (piece.getColor() == Piece.PieceColor.WHITE && rowDir == -1) return true;
-                    if (piece.getColor() == Piece.PieceColor.BLACK && rowDir == 1) return true;
-                }
-                return false;
+                return (Attacks.PAWN[piece.getColor().ordinal()][from] & target) != 0;
 
             case KNIGHT:
-                return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
+                return (Attacks.KNIGHT[from] & target) != 0;
 
             case BISHOP:
-                if (rowDiff == colDiff && rowDiff > 0) {
-                    return isPathClear(startRow, startCol, endRow, endCol);
-                }
-                return false;
+                return (Attacks.bishopAttacks(from, occupied) & target) != 0;
 
             case ROOK:
-                if ((rowDiff > 0 && colDiff == 0) || (colDiff > 0 && rowDiff == 0)) {
-                    return isPathClear(startRow, startCol, endRow, endCol);
-                }
-                return false;
+                return (Attacks.rookAttacks(from, occupied) & target) != 0;
 
             case QUEEN:
-                if ((rowDiff > 0 && colDiff == 0) || (colDiff > 0 && rowDiff == 0) || (rowDiff == colDiff && rowDiff > 0)) {
-                    return isPathClear(startRow, startCol, endRow, endCol);
-                }
-                return false;
+                return (Attacks.queenAttacks(from, occupied) & target) != 0;
 
             case KING:
-                if (rowDiff <= 1 && colDiff <= 1 && (rowDiff > 0 || colDiff > 0)) {
+                if ((Attacks.KING[from] & target) != 0) {
                     return true;
                 }
-                if (rowDiff == 0 && colDiff == 2) {
+                if (startRow == endRow && Math.abs(endCol - startCol) == 2) {
                     return isValidCastlingAttempt(startRow, startCol, endRow, endCol);
                 }
                 return false;
@@ -661,66 +1366,90 @@ public class Board {
     }
 
     public int[] findKing(Piece.PieceColor kingColor) {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece piece = squares[r][c];
-                if (piece != null && piece.getType() == Piece.PieceType.KING && piece.getColor() == kingColor) {
-                    return new int[]{r, c};
-                }
-            }
+        long kings = pieceBitboards[bitboardIndex(Piece.PieceType.KING, kingColor)];
+        if (kings == 0) {
+            return null;
         }
-        return null;
+        int square = Long.numberOfTrailingZeros(kings);
+        return new int[]{rowOf(square), colOf(square)};
     }
 
+    /**
+     * Returns true if the king of the given color is attacked. Looks outward from the king square
+     * with the attack tables, or reads the opponent's attack map when it is already built for
+     * the current position.
+     */
     public boolean isKingInCheck(Piece.PieceColor kingColor) {
-        int[] kingPos = findKing(kingColor);
-        if (kingPos == null) {
-            System.err.println("Error: King of color " + kingColor + " not found on board. Cannot check for check.");
+        long kings = pieceBitboards[bitboardIndex(Piece.PieceType.KING, kingColor)];
+        if (kings == 0) {
+            listener.onError("Error: King of color " + kingColor + " not found on board. Cannot check for check.");
             return false;
         }
 
-        int kingRow = kingPos[0];
-        int kingCol = kingPos[1];
-
         Piece.PieceColor opponentColor = (kingColor == Piece.PieceColor.WHITE) ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE;
+        int opponent = opponentColor.ordinal();
+        if ((attackMapsValid & (1 << opponent)) != 0) {
+            return (attackMaps[opponent] & kings) != 0;
+        }
+        return isSquareAttacked(Long.numberOfTrailingZeros(kings), opponentColor);
+    }
 
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece opponentPiece = squares[r][c];
-                if (opponentPiece != null && opponentPiece.getColor() == opponentColor) {
-                    if (opponentPiece.getType() == Piece.PieceType.PAWN) {
-                        int pawnRowDir = (opponentPiece.getColor() == Piece.PieceColor.WHITE) ? -1 : 1;
-                        int rowDiff = kingRow - r;
-                        int colDiff = kingCol - c;
-                        if (Math.abs(colDiff) == 1 && rowDiff == pawnRowDir) {
-                            return true;
-                        }
-                    } else {
-                        Piece tempKing = squares[kingRow][kingCol];
-                        squares[kingRow][kingCol] = null;
-                        boolean canAttackKing = isValidPieceMove(new ParsedMove(r, c, kingRow, kingCol));
-                        squares[kingRow][kingCol] = tempKing;
-                        if (canAttackKing) {
-                            return true;
-                        }
-                    }
-                }
-            }
+    /**
+     * Returns every square attacked by the given color, pawns included even when the square is
+     * empty. The map is cached until the position changes.
+     * @return A bitboard of attacked squares.
+     */
+    public long getAttackedSquares(Piece.PieceColor color) {
+        int c = color.ordinal();
+        if ((attackMapsValid & (1 << c)) == 0) {
+            attackMaps[c] = computeAttackMap(color);
+            attackMapsValid |= 1 << c;
+        }
+        return attackMaps[c];
+    }
+
+    private long computeAttackMap(Piece.PieceColor color) {
+        int c = color.ordinal();
+        long attacks = 0L;
+        long pawns = pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, color)];
+        while (pawns != 0) {
+            attacks |= Attacks.PAWN[c][Long.numberOfTrailingZeros(pawns)];
+            pawns &= pawns - 1;
+        }
+        long knights = pieceBitboards[bitboardIndex(Piece.PieceType.KNIGHT, color)];
+        while (knights != 0) {
+            attacks |= Attacks.KNIGHT[Long.numberOfTrailingZeros(knights)];
+            knights &= knights - 1;
+        }
+        long queens = pieceBitboards[bitboardIndex(Piece.PieceType.QUEEN, color)];
+        long diagonalSliders = pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, color)] | queens;
+        while (diagonalSliders != 0) {
+            attacks |= Attacks.bishopAttacks(Long.numberOfTrailingZeros(diagonalSliders), occupied);
+            diagonalSliders &= diagonalSliders - 1;
+        }
+        long straightSliders = pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, color)] | queens;
+        while (straightSliders != 0) {
+            attacks |= Attacks.rookAttacks(Long.numberOfTrailingZeros(straightSliders), occupied);
+            straightSliders &= straightSliders - 1;
+        }
+        long kings = pieceBitboards[bitboardIndex(Piece.PieceType.KING, color)];
+        if (kings != 0) {
+            attacks |= Attacks.KING[Long.numberOfTrailingZeros(kings)];
         }
-        return false;
+        return attacks;
     }
 
     private boolean isValidCastlingAttempt(int kingStartRow, int kingStartCol, int kingEndRow, int kingEndCol) {
         if (kingStartCol != 4 || (kingStartRow != 0 && kingStartRow != 7)) {
-            System.out.println("Invalid Castling: King not in original e-file or home rank.");
+            listener.onInfo("Invalid Castling: King not in original e-file or home rank.");
             return false;
         }
         if (Math.abs(kingEndCol - kingStartCol) != 2 || kingStartRow != kingEndRow) return false;
 
         if (currentPlayerTurn == Piece.PieceColor.WHITE) {
-            if (whiteKingMoved) { System.out.println("Invalid Castling: White King has moved."); return false; }
+            if (whiteKingMoved) { listener.onInfo("Invalid Castling: White King has moved."); return false; }
         } else {
-            if (blackKingMoved) { System.out.println("Invalid Castling: Black King has moved."); return false; }
+            if (blackKingMoved) { listener.onInfo("Invalid Castling: Black King has moved."); return false; }
         }
 
         int rookStartCol;
@@ -733,202 +1462,701 @@ public class Board {
         }
         int rookRow = kingStartRow;
 
-        Piece rook = squares[rookRow][rookStartCol];
+        Piece rook = pieceAt(rookRow, rookStartCol);
         if (rook == null || rook.getType() != Piece.PieceType.ROOK || rook.getColor() != currentPlayerTurn) {
-            System.out.println("Invalid Castling: No " + currentPlayerTurn + " Rook at original " + (char)('a'+rookStartCol) + (char)('1'+(7-rookRow)) + ".");
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("Invalid Castling: No " + currentPlayerTurn + " Rook at original " + (char)('a'+rookStartCol) + (char)('1'+(7-rookRow)) + ".");
+            }
             return false;
         }
         if (currentPlayerTurn == Piece.PieceColor.WHITE) {
-            if (isKingside && whiteRookHMoved) { System.out.println("Invalid Castling: White Kingside Rook has moved."); return false; }
-            if (!isKingside && whiteRookAMoved) { System.out.println("Invalid Castling: White Queenside Rook has moved."); return false; }
+            if (isKingside && whiteRookHMoved) { listener.onInfo("Invalid Castling: White Kingside Rook has moved."); return false; }
+            if (!isKingside && whiteRookAMoved) { listener.onInfo("Invalid Castling: White Queenside Rook has moved."); return false; }
         } else {
-            if (isKingside && blackRookHMoved) { System.out.println("Invalid Castling: Black Kingside Rook has moved."); return false; }
-            if (!isKingside && blackRookAMoved) { System.out.println("Invalid Castling: Black Queenside Rook has moved."); return false; }
+            if (isKingside && blackRookHMoved) { listener.onInfo("Invalid Castling: Black Kingside Rook has moved."); return false; }
+            if (!isKingside && blackRookAMoved) { listener.onInfo("Invalid Castling: Black Queenside Rook has moved."); return false; }
         }
 
         if (isKingInCheck(currentPlayerTurn)) {
-            System.out.println("Invalid Castling: King is currently in check.");
+            listener.onInfo("Invalid Castling: King is currently in check.");
             return false;
         }
 
         if (!isPathClear(kingStartRow, kingStartCol, rookRow, rookStartCol)) {
-            System.out.println("Invalid Castling: Path between King and Rook is blocked.");
+            listener.onInfo("Invalid Castling: Path between King and Rook is blocked.");
             return false;
         }
 
         int intermediateKingCol = kingStartCol + Integer.compare(kingEndCol, kingStartCol);
 
-        Piece originalKingPiece = squares[kingStartRow][kingStartCol];
-        Piece originalRookPiece = squares[rookRow][rookStartCol];
-        Piece pieceAtIntermediateKingSquare = squares[kingStartRow][intermediateKingCol];
-        Piece pieceAtFinalKingSquare = squares[kingEndRow][kingEndCol];
-
-        squares[kingStartRow][kingStartCol] = null;
-        squares[kingStartRow][intermediateKingCol] = originalKingPiece;
+        // Step the king through its path with make/unmake; the path is known to be empty here.
+        Piece.PieceColor mover = currentPlayerTurn;
+        int kingSquare = toSquare(kingStartRow, kingStartCol);
 
-        if (isKingInCheck(currentPlayerTurn)) {
-            System.out.println("Invalid Castling: King passes through an attacked square (" + (char)('a'+intermediateKingCol) + (char)('1'+(7-kingStartRow)) + ").");
-            squares[kingStartRow][kingStartCol] = originalKingPiece;
-            squares[kingStartRow][intermediateKingCol] = pieceAtIntermediateKingSquare;
+        makeMove(Move.encode(kingSquare, toSquare(kingStartRow, intermediateKingCol), Move.QUIET));
+        boolean passesThroughCheck = isKingInCheck(mover);
+        unmakeMove();
+        if (passesThroughCheck) {
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("Invalid Castling: King passes through an attacked square (" + (char)('a'+intermediateKingCol) + (char)('1'+(7-kingStartRow)) + ").");
+            }
             return false;
         }
 
-        squares[kingStartRow][intermediateKingCol] = pieceAtIntermediateKingSquare;
-        squares[kingEndRow][kingEndCol] = originalKingPiece;
-
-        if (isKingInCheck(currentPlayerTurn)) {
-            System.out.println("Invalid Castling: King lands in an attacked square (" + (char)('a'+kingEndCol) + (char)('1'+(7-kingEndRow)) + ").");
-            squares[kingStartRow][kingStartCol] = originalKingPiece;
-            squares[kingEndRow][kingEndCol] = pieceAtFinalKingSquare;
+        makeMove(Move.encode(kingSquare, toSquare(kingEndRow, kingEndCol), Move.QUIET));
+        boolean landsInCheck = isKingInCheck(mover);
+        unmakeMove();
+        if (landsInCheck) {
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("Invalid Castling: King lands in an attacked square (" + (char)('a'+kingEndCol) + (char)('1'+(7-kingEndRow)) + ").");
+            }
             return false;
         }
 
-        squares[kingStartRow][kingStartCol] = originalKingPiece;
-        squares[kingEndRow][kingEndCol] = pieceAtFinalKingSquare;
-        squares[kingStartRow][intermediateKingCol] = pieceAtIntermediateKingSquare;
-        squares[rookRow][rookStartCol] = originalRookPiece;
-
         return true;
     }
 
 
     public String findRandomLegalMove() {
-        List<String> legalMoves = new ArrayList<>();
-
-        for (int startRow = 0; startRow < 8; startRow++) {
-            for (int startCol = 0; startCol < 8; startCol++) {
-                Piece piece = squares[startRow][startCol];
-
-                if (piece != null && piece.getColor() == currentPlayerTurn) {
-                    for (int endRow = 0; endRow < 8; endRow++) {
-                        for (int endCol = 0; endCol < 8; endCol++) {
-                            ParsedMove tempMove = new ParsedMove(startRow, startCol, endRow, endCol);
-                            if (piece.getType() == Piece.PieceType.KING && startRow == endRow && Math.abs(startCol - endCol) == 2) {
-                                tempMove.isKingsideCastle = (endCol == 6);
-                                tempMove.isQueensideCastle = (endCol == 2);
-                            }
-
-                            if (isValidMoveAttempt(tempMove)) {
-                                char startFile = (char) ('a' + startCol);
-                                char startRank = (char) ('1' + (7 - startRow));
-                                char endFile = (char) ('a' + endCol);
-                                char endRank = (char) ('1' + (7 - endRow));
-
-                                if (tempMove.isKingsideCastle) { legalMoves.add("O-O"); }
-                                else if (tempMove.isQueensideCastle) { legalMoves.add("O-O-O"); }
-                                else {
-                                    legalMoves.add("" + startFile + startRank + endFile + endRank);
-                                }
-                            }
-                        }
-                    }
-                }
+        int moveCount = generateLegalMoves(moveBuffer);
+        int legalCount = 0;
+        for (int i = 0; i < moveCount; i++) {
+            int move = moveBuffer[i];
+            // The AI always queens through PROMOTION_PENDING, so list each promotion square once.
+            if (Move.isPromotion(move) && Move.promotionType(move) != Piece.PieceType.QUEEN) {
+                continue;
             }
+            moveBuffer[legalCount++] = move;
         }
 
-        if (legalMoves.isEmpty()) {
-            System.out.println("No legal moves found for " + currentPlayerTurn + ".");
+        if (legalCount == 0) {
+            if (listener != BoardListener.NONE) {
+                listener.onInfo("No legal moves found for " + currentPlayerTurn + ".");
+            }
             return null;
         }
 
-        String chosenMove = legalMoves.get(random.nextInt(legalMoves.size()));
-        return chosenMove;
+        return toMoveString(moveBuffer[random.nextInt(legalCount)]);
     }
 
-    private boolean isValidMoveAttempt(ParsedMove parsedMove) {
-        int startRow = parsedMove.startRow;
-        int startCol = parsedMove.startCol;
-        int endRow = parsedMove.endRow;
-        int endCol = parsedMove.endCol;
+    /**
+     * Notation accepted by move(): "O-O"/"O-O-O" for castling, otherwise "e2e4" style coordinates.
+     * Promotions carry no piece letter so the mover is asked through PROMOTION_PENDING.
+     */
+    static String toMoveString(int move) {
+        int flags = Move.flags(move);
+        if (flags == Move.KING_CASTLE) return "O-O";
+        if (flags == Move.QUEEN_CASTLE) return "O-O-O";
+        StringBuilder sb = new StringBuilder(4);
+        Move.appendSquare(sb, Move.from(move));
+        Move.appendSquare(sb, Move.to(move));
+        return sb.toString();
+    }
 
-        Piece pieceToMove = squares[startRow][startCol];
-        Piece targetPiece = squares[endRow][endCol];
+    /**
+     * Writes the pseudo-legal moves of the side to move into the given buffer as encoded
+     * {@link Move} ints. Moves may still leave the mover's own king in check; castling is
+     * only generated when the king does not start in, pass through or land on an attacked square.
+     * @param moves Buffer to fill; must hold at least {@link Move#MAX_MOVES} entries.
+     * @return The number of moves written.
+     */
+    public int generatePseudoLegalMoves(int[] moves) {
+        return generateMoves(moves, false);
+    }
 
-        if (startRow < 0 || startRow >= 8 || startCol < 0 || startCol >= 8 ||
-                endRow < 0 || endRow >= 8 || endCol < 0 || endCol >= 8) {
-            return false;
-        }
+    /**
+     * Writes the legal moves of the side to move into the given buffer as encoded {@link Move}
+     * ints. Checkers and pinned pieces are worked out once for the position, so no move has to
+     * be played to test it: under check only king moves, captures of the checker and blocks are
+     * produced, and pinned pieces only move along their pin line.
+     * @param moves Buffer to fill; must hold at least {@link Move#MAX_MOVES} entries.
+     * @return The number of moves written.
+     */
+    public int generateLegalMoves(int[] moves) {
+        return generateMoves(moves, true);
+    }
 
-        if (pieceToMove == null || pieceToMove.getColor() != currentPlayerTurn) {
-            return false;
+    private int generateMoves(int[] moves, boolean legalOnly) {
+        Piece.PieceColor us = currentPlayerTurn;
+        Piece.PieceColor them = (us == Piece.PieceColor.WHITE) ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE;
+        long own = colorOccupancy[us.ordinal()];
+        long enemy = colorOccupancy[them.ordinal()];
+        long kings = pieceBitboards[bitboardIndex(Piece.PieceType.KING, us)];
+        int kingSquare = Long.numberOfTrailingZeros(kings);
+        legalOnly &= (kings != 0);
+
+        // Squares non-king moves may land on; narrowed to "capture or block the checker" in check.
+        long targets = ~own;
+        long pinned = 0L;
+        long checkers = 0L;
+        if (legalOnly) {
+            checkers = attackersTo(kingSquare, them, occupied);
+            pinned = pinnedPieces(us, them, kingSquare);
+            if (checkers != 0) {
+                targets = ((checkers & (checkers - 1)) != 0)
+                        ? 0L // Double check: only the king can move.
+                        : targets & (checkers | Attacks.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)]);
+            }
         }
+        int count = 0;
 
-        boolean isTargetEmpty = (targetPiece == null);
-        boolean isTargetOccupiedByOpponent = (targetPiece != null && targetPiece.getColor() != currentPlayerTurn);
-        boolean isTargetOccupiedByOwn = (targetPiece != null && targetPiece.getColor() == currentPlayerTurn);
+        if (targets != 0) {
+            count = generatePawnMoves(moves, count, us, them, enemy, targets, pinned, kingSquare, checkers, legalOnly);
 
-        if (isTargetOccupiedByOwn && (startRow != endRow || startCol != endCol)) {
-            return false;
+            long knights = pieceBitboards[bitboardIndex(Piece.PieceType.KNIGHT, us)] & ~pinned; // A pinned knight can never move.
+            while (knights != 0) {
+                int from = Long.numberOfTrailingZeros(knights);
+                knights &= knights - 1;
+                count = addMoves(moves, count, from, Attacks.KNIGHT[from] & targets, enemy);
+            }
+
+            long bishops = pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, us)];
+            while (bishops != 0) {
+                int from = Long.numberOfTrailingZeros(bishops);
+                bishops &= bishops - 1;
+                count = addMoves(moves, count, from, Attacks.bishopAttacks(from, occupied) & targets & pinMask(from, pinned, kingSquare), enemy);
+            }
+
+            long rooks = pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, us)];
+            while (rooks != 0) {
+                int from = Long.numberOfTrailingZeros(rooks);
+                rooks &= rooks - 1;
+                count = addMoves(moves, count, from, Attacks.rookAttacks(from, occupied) & targets & pinMask(from, pinned, kingSquare), enemy);
+            }
+
+            long queens = pieceBitboards[bitboardIndex(Piece.PieceType.QUEEN, us)];
+            while (queens != 0) {
+                int from = Long.numberOfTrailingZeros(queens);
+                queens &= queens - 1;
+                count = addMoves(moves, count, from, Attacks.queenAttacks(from, occupied) & targets & pinMask(from, pinned, kingSquare), enemy);
+            }
         }
 
-        if (!isValidPieceMove(parsedMove)) {
-            return false;
+        if (kings != 0) {
+            long destinations = Attacks.KING[kingSquare] & ~own;
+            if (legalOnly) {
+                // Test king squares with the king lifted off the board, so sliders see through it.
+                long withoutKing = occupied ^ kings;
+                long safe = 0L;
+                while (destinations != 0) {
+                    int to = Long.numberOfTrailingZeros(destinations);
+                    destinations &= destinations - 1;
+                    if (attackersTo(to, them, withoutKing) == 0) {
+                        safe |= 1L << to;
+                    }
+                }
+                destinations = safe;
+            }
+            count = addMoves(moves, count, kingSquare, destinations, enemy);
+            if (checkers == 0) {
+                count = generateCastlingMoves(moves, count, us, them, kingSquare);
+            }
         }
+        return count;
+    }
 
-        if (!parsedMove.isKingsideCastle && !parsedMove.isQueensideCastle) {
-            if (pieceToMove.getType() == Piece.PieceType.PAWN) {
-                if (startCol == endCol) {
-                    if (!isTargetEmpty) return false;
-                } else {
-                    boolean isEnPassantCandidate = (enPassantTargetSquare != null &&
-                            endRow == enPassantTargetSquare[0] &&
-                            endCol == enPassantTargetSquare[1]);
+    /**
+     * @return The squares a piece on from may move to without exposing its king: everything for
+     * an unpinned piece, otherwise the line through king and pinner.
+     */
+    private static long pinMask(int from, long pinned, int kingSquare) {
+        return ((pinned & (1L << from)) == 0) ? ~0L : Attacks.LINE[kingSquare][from];
+    }
+
+    /**
+     * Finds our pieces that stand alone between our king and an enemy slider on the same line.
+     */
+    private long pinnedPieces(Piece.PieceColor us, Piece.PieceColor them, int kingSquare) {
+        long queens = pieceBitboards[bitboardIndex(Piece.PieceType.QUEEN, them)];
+        long snipers = (Attacks.rookAttacks(kingSquare, 0L) & (pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, them)] | queens))
+                | (Attacks.bishopAttacks(kingSquare, 0L) & (pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, them)] | queens));
+        long own = colorOccupancy[us.ordinal()];
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.BETWEEN[kingSquare][sniper] & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * @return Every piece of byColor that attacks the square, given the occupancy.
+     */
+    private long attackersTo(int square, Piece.PieceColor byColor, long occupancy) {
+        int by = byColor.ordinal();
+        long queens = pieceBitboards[bitboardIndex(Piece.PieceType.QUEEN, byColor)];
+        return (Attacks.PAWN[by ^ 1][square] & pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, byColor)])
+                | (Attacks.KNIGHT[square] & pieceBitboards[bitboardIndex(Piece.PieceType.KNIGHT, byColor)])
+                | (Attacks.KING[square] & pieceBitboards[bitboardIndex(Piece.PieceType.KING, byColor)])
+                | (Attacks.bishopAttacks(square, occupancy) & (pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, byColor)] | queens))
+                | (Attacks.rookAttacks(square, occupancy) & (pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, byColor)] | queens));
+    }
+
+    private int addMoves(int[] moves, int count, int from, long destinations, long enemy) {
+        while (destinations != 0) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            moves[count++] = Move.encode(from, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET);
+        }
+        return count;
+    }
 
-                    if (isEnPassantCandidate) {
-                        if (pieceToMove.getColor() == Piece.PieceColor.WHITE && startRow != 3) return false;
-                        if (pieceToMove.getColor() == Piece.PieceColor.BLACK && startRow != 4) return false;
+    private int generatePawnMoves(int[] moves, int count, Piece.PieceColor us, Piece.PieceColor them, long enemy,
+                                  long targets, long pinned, int kingSquare, long checkers, boolean legalOnly) {
+        boolean white = (us == Piece.PieceColor.WHITE);
+        int forward = white ? 8 : -8;
+        int startRank = white ? 1 : 6;
+        int promotionRank = white ? 7 : 0;
+
+        long pawns = pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, us)];
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = targets & pinMask(from, pinned, kingSquare);
+
+            int oneStep = from + forward;
+            if ((occupied & (1L << oneStep)) == 0) {
+                if ((allowed & (1L << oneStep)) != 0) {
+                    if ((oneStep >>> 3) == promotionRank) {
+                        count = addPromotions(moves, count, from, oneStep, Move.PROMOTION);
                     } else {
-                        if (!isTargetOccupiedByOpponent) return false;
+                        moves[count++] = Move.encode(from, oneStep, Move.QUIET);
                     }
                 }
+                int twoSteps = oneStep + forward;
+                if ((from >>> 3) == startRank && (occupied & (1L << twoSteps)) == 0 && (allowed & (1L << twoSteps)) != 0) {
+                    moves[count++] = Move.encode(from, twoSteps, Move.DOUBLE_PAWN_PUSH);
+                }
+            }
+
+            long captures = Attacks.PAWN[us.ordinal()][from] & enemy & allowed;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if ((to >>> 3) == promotionRank) {
+                    count = addPromotions(moves, count, from, to, Move.PROMOTION_CAPTURE);
+                } else {
+                    moves[count++] = Move.encode(from, to, Move.CAPTURE);
+                }
+            }
+
+            if (enPassantTargetSquare != NO_SQUARE && (Attacks.PAWN[us.ordinal()][from] & (1L << enPassantTargetSquare)) != 0
+                    && (!legalOnly || isEnPassantLegal(from, them, kingSquare))) {
+                moves[count++] = Move.encode(from, enPassantTargetSquare, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * En passant removes two pawns from the same rank at once, which pin and check masks do not
+     * describe (e.g. king and rook on the fifth rank with both pawns between them), so the king
+     * is tested directly against the occupancy after the capture.
+     */
+    private boolean isEnPassantLegal(int from, Piece.PieceColor them, int kingSquare) {
+        int capturedSquare = enPassantTargetSquare + ((them == Piece.PieceColor.BLACK) ? -8 : 8);
+        long capturedBit = 1L << capturedSquare;
+        long occupancyAfter = (occupied ^ (1L << from) ^ capturedBit) | (1L << enPassantTargetSquare);
+        return (attackersTo(kingSquare, them, occupancyAfter) & ~capturedBit) == 0;
+    }
+
+    private int addPromotions(int[] moves, int count, int from, int to, int promotionFlags) {
+        moves[count++] = Move.encode(from, to, promotionFlags | Move.PROMOTE_QUEEN);
+        moves[count++] = Move.encode(from, to, promotionFlags | Move.PROMOTE_ROOK);
+        moves[count++] = Move.encode(from, to, promotionFlags | Move.PROMOTE_BISHOP);
+        moves[count++] = Move.encode(from, to, promotionFlags | Move.PROMOTE_KNIGHT);
+        return count;
+    }
+
+    private int generateCastlingMoves(int[] moves, int count, Piece.PieceColor us, Piece.PieceColor them, int kingSquare) {
+        boolean white = (us == Piece.PieceColor.WHITE);
+        int homeSquare = white ? 4 : 60;
+        if (kingSquare != homeSquare || (white ? whiteKingMoved : blackKingMoved)) {
+            return count;
+        }
+        long rooks = pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, us)];
+
+        boolean kingsideRookMoved = white ? whiteRookHMoved : blackRookHMoved;
+        int kingsideRook = homeSquare + 3;
+        if (!kingsideRookMoved && (rooks & (1L << kingsideRook)) != 0
+                && (occupied & (3L << (homeSquare + 1))) == 0
+                && (getAttackedSquares(them) & (7L << homeSquare)) == 0) {
+            moves[count++] = Move.encode(homeSquare, homeSquare + 2, Move.KING_CASTLE);
+        }
+
+        boolean queensideRookMoved = white ? whiteRookAMoved : blackRookAMoved;
+        int queensideRook = homeSquare - 4;
+        if (!queensideRookMoved && (rooks & (1L << queensideRook)) != 0
+                && (occupied & (7L << (homeSquare - 3))) == 0
+                && (getAttackedSquares(them) & (7L << (homeSquare - 2))) == 0) {
+            moves[count++] = Move.encode(homeSquare, homeSquare - 2, Move.QUEEN_CASTLE);
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if any piece of the given color attacks the square, looking outward from the
+     * square with the attack tables.
+     */
+    boolean isSquareAttacked(int square, Piece.PieceColor byColor) {
+        int by = byColor.ordinal();
+        // A pawn of byColor attacks square exactly when a pawn of the other color on square would attack it.
+        if ((Attacks.PAWN[by ^ 1][square] & pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, byColor)]) != 0) return true;
+        if ((Attacks.KNIGHT[square] & pieceBitboards[bitboardIndex(Piece.PieceType.KNIGHT, byColor)]) != 0) return true;
+        if ((Attacks.KING[square] & pieceBitboards[bitboardIndex(Piece.PieceType.KING, byColor)]) != 0) return true;
+        long queens = pieceBitboards[bitboardIndex(Piece.PieceType.QUEEN, byColor)];
+        long diagonalSliders = pieceBitboards[bitboardIndex(Piece.PieceType.BISHOP, byColor)] | queens;
+        if ((Attacks.bishopAttacks(square, occupied) & diagonalSliders) != 0) return true;
+        long straightSliders = pieceBitboards[bitboardIndex(Piece.PieceType.ROOK, byColor)] | queens;
+        return (Attacks.rookAttacks(square, occupied) & straightSliders) != 0;
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree to the given depth. Used to verify move
+     * generation against published node counts and to measure its throughput.
+     * @param depth Depth in plies.
+     * @return The number of leaf positions.
+     */
+    public long perft(int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(depth, 0);
+    }
+
+    /**
+     * Runs perft for each legal move of the current position separately.
+     * @param depth Depth in plies, including the root move.
+     * @return Leaf counts keyed by move in coordinate notation (e.g. "e2e4", "e7e8q"), in generation order.
+     */
+    public Map<String, Long> divide(int depth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return result;
+        }
+        int[] moves = plyMoveBuffer(0);
+        int moveCount = generateLegalMoves(moves);
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            if (depth == 1) {
+                result.put(Move.toUci(move), 1L);
+                continue;
+            }
+            makeMove(move);
+            result.put(Move.toUci(move), perft(depth - 1, 1));
+            unmakeMove();
+        }
+        return result;
+    }
+
+    private long perft(int depth, int ply) {
+        int[] moves = plyMoveBuffer(ply);
+        int moveCount = generateLegalMoves(moves);
+        if (depth == 1) {
+            return moveCount; // Bulk counting: every generated move is legal.
+        }
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            makeMove(moves[i]);
+            nodes += perft(depth - 1, ply + 1);
+            unmakeMove();
+        }
+        return nodes;
+    }
+
+    private int[] plyMoveBuffer(int ply) {
+        if (ply >= plyMoveBuffers.length) {
+            int oldLength = plyMoveBuffers.length;
+            plyMoveBuffers = Arrays.copyOf(plyMoveBuffers, Math.max(ply + 1, oldLength * 2));
+            for (int i = oldLength; i < plyMoveBuffers.length; i++) {
+                plyMoveBuffers[i] = new int[Move.MAX_MOVES];
+            }
+        }
+        return plyMoveBuffers[ply];
+    }
+
+    int kingSquare(Piece.PieceColor color) {
+        return Long.numberOfTrailingZeros(pieceBitboards[bitboardIndex(Piece.PieceType.KING, color)]);
+    }
+
+    /**
+     * Plays an encoded move without validation or console output and pushes everything needed to
+     * take it back (moved and captured piece, castling flags, en passant square) onto the undo
+     * stack. The move must be legal, e.g. taken from the move generator. Always switches the turn.
+     * @param move The encoded move (see {@link Move}).
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece movingPiece = squares[from];
+        boolean white = movingPiece.getColor() == Piece.PieceColor.WHITE;
+
+        int capturedSquare = (flags == Move.EN_PASSANT) ? to + (white ? -8 : 8) : to;
+        Piece capturedPiece = squares[capturedSquare];
+
+        if (undoSize == undoMoves.length) {
+            growUndoStack();
+        }
+        undoMoves[undoSize] = move;
+        undoMovedPieces[undoSize] = movingPiece;
+        undoCapturedPieces[undoSize] = capturedPiece;
+        undoCastlingFlags[undoSize] = packCastlingFlags();
+        undoEnPassantSquares[undoSize] = enPassantTargetSquare;
+        undoHalfmoveClocks[undoSize] = halfmoveClock;
+        int oldCastlingRights = castlingRights();
+        undoSize++;
+        if (keyHistorySize == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, keyHistory.length * 2);
+        }
+        keyHistory[keyHistorySize++] = zobristKey;
+
+        if (capturedPiece != null || movingPiece.getType() == Piece.PieceType.PAWN) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (!white) {
+            fullmoveNumber++;
+        }
+
+        if (capturedPiece != null) {
+            setSquare(capturedSquare, null);
+            decrementPieceCount(capturedPiece.getType(), capturedPiece.getColor());
+        }
+        setSquare(from, null);
+        if ((flags & Move.PROMOTION) != 0) {
+            Piece.PieceType promotionType = Move.promotionType(move);
+            setSquare(to, Piece.of(promotionType, movingPiece.getColor()));
+            decrementPieceCount(Piece.PieceType.PAWN, movingPiece.getColor());
+            incrementPieceCount(promotionType, movingPiece.getColor());
+        } else {
+            setSquare(to, movingPiece);
+        }
+
+        if (flags == Move.KING_CASTLE) {
+            setSquare(to - 1, squares[to + 1]);
+            setSquare(to + 1, null);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            setSquare(to + 1, squares[to - 2]);
+            setSquare(to - 2, null);
+        }
+
+        if (movingPiece.getType() == Piece.PieceType.KING) {
+            if (white) whiteKingMoved = true;
+            else blackKingMoved = true;
+        }
+        if (flags == Move.KING_CASTLE) {
+            updateRookCastlingFlags(to + 1, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            updateRookCastlingFlags(to - 2, to + 1);
+        } else {
+            updateRookCastlingFlags(from, to);
+        }
+
+        if (enPassantTargetSquare != NO_SQUARE) {
+            zobristKey ^= Zobrist.EN_PASSANT_FILE[colOf(enPassantTargetSquare)];
+        }
+        enPassantTargetSquare = NO_SQUARE;
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            // Only record a target an enemy pawn can actually capture on, so that otherwise equal
+            // positions get equal keys.
+            int target = (from + to) >>> 1;
+            long enemyPawns = pieceBitboards[bitboardIndex(Piece.PieceType.PAWN, white ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE)];
+            if ((Attacks.PAWN[movingPiece.getColor().ordinal()][target] & enemyPawns) != 0) {
+                enPassantTargetSquare = target;
+                zobristKey ^= Zobrist.EN_PASSANT_FILE[colOf(target)];
             }
         }
+        zobristKey ^= Zobrist.CASTLING[oldCastlingRights] ^ Zobrist.CASTLING[castlingRights()];
+        switchTurn();
+    }
 
-        Piece originalStartPiece = squares[startRow][startCol];
-        Piece originalEndPiece = squares[endRow][endCol];
-        Piece originalEnPassantCapturedPawn = null;
-        Piece originalRookPiece = null;
-        int rookOriginalCol = -1;
-        int rookSimulatedEndCol = -1;
+    /**
+     * Takes back the last move played with makeMove(), restoring pieces, piece counts, castling
+     * flags, en passant square, move counters and turn.
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            listener.onError("Error: No move to unmake.");
+            return;
+        }
+        undoSize--;
+        int move = undoMoves[undoSize];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        Piece movingPiece = undoMovedPieces[undoSize];
+        Piece capturedPiece = undoCapturedPieces[undoSize];
+        boolean white = movingPiece.getColor() == Piece.PieceColor.WHITE;
 
-        squares[endRow][endCol] = originalStartPiece;
-        squares[startRow][startCol] = null;
+        switchTurn();
+        restoreCastlingFlags(undoCastlingFlags[undoSize]);
+        enPassantTargetSquare = undoEnPassantSquares[undoSize];
+        halfmoveClock = undoHalfmoveClocks[undoSize];
+        if (!white) {
+            fullmoveNumber--;
+        }
 
-        if (pieceToMove.getType() == Piece.PieceType.PAWN && Math.abs(startCol - endCol) == 1 && isTargetEmpty && enPassantTargetSquare != null && endRow == enPassantTargetSquare[0] && endCol == enPassantTargetSquare[1]) {
-            int capturedPawnRow = (originalStartPiece.getColor() == Piece.PieceColor.WHITE) ? endRow + 1 : endRow - 1;
-            int capturedPawnCol = endCol;
-            originalEnPassantCapturedPawn = squares[capturedPawnRow][capturedPawnCol];
-            squares[capturedPawnRow][capturedPawnCol] = null;
+        if (flags == Move.KING_CASTLE) {
+            setSquare(to + 1, squares[to - 1]);
+            setSquare(to - 1, null);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            setSquare(to - 2, squares[to + 1]);
+            setSquare(to + 1, null);
         }
 
-        if (parsedMove.isKingsideCastle || parsedMove.isQueensideCastle) {
-            rookOriginalCol = parsedMove.isKingsideCastle ? 7 : 0;
-            rookSimulatedEndCol = parsedMove.isKingsideCastle ? 5 : 3;
-            originalRookPiece = squares[startRow][rookOriginalCol];
-            squares[endRow][rookSimulatedEndCol] = originalRookPiece;
-            squares[startRow][rookOriginalCol] = null;
+        if ((flags & Move.PROMOTION) != 0) {
+            Piece promotedPiece = squares[to];
+            decrementPieceCount(promotedPiece.getType(), promotedPiece.getColor());
+            incrementPieceCount(Piece.PieceType.PAWN, movingPiece.getColor());
         }
+        setSquare(to, null);
+        setSquare(from, movingPiece);
+        if (capturedPiece != null) {
+            setSquare((flags == Move.EN_PASSANT) ? to + (white ? -8 : 8) : to, capturedPiece);
+            incrementPieceCount(capturedPiece.getType(), capturedPiece.getColor());
+        }
+        undoMovedPieces[undoSize] = null;
+        undoCapturedPieces[undoSize] = null;
+        zobristKey = keyHistory[--keyHistorySize];
+    }
+
+    private void growUndoStack() {
+        int newCapacity = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, newCapacity);
+        undoMovedPieces = Arrays.copyOf(undoMovedPieces, newCapacity);
+        undoCapturedPieces = Arrays.copyOf(undoCapturedPieces, newCapacity);
+        undoCastlingFlags = Arrays.copyOf(undoCastlingFlags, newCapacity);
+        undoEnPassantSquares = Arrays.copyOf(undoEnPassantSquares, newCapacity);
+        undoHalfmoveClocks = Arrays.copyOf(undoHalfmoveClocks, newCapacity);
+    }
+
+    /**
+     * A rook leaving its corner, or anything landing on that corner (a capture), loses the
+     * matching castling right for good.
+     */
+    private void updateRookCastlingFlags(int from, int to) {
+        if (from == A1 || to == A1) whiteRookAMoved = true;
+        if (from == H1 || to == H1) whiteRookHMoved = true;
+        if (from == A8 || to == A8) blackRookAMoved = true;
+        if (from == H8 || to == H8) blackRookHMoved = true;
+    }
 
-        boolean isKingInCheckAfterMove = isKingInCheck(currentPlayerTurn);
+    private int packCastlingFlags() {
+        return (whiteKingMoved ? 1 : 0) | (blackKingMoved ? 2 : 0)
+                | (whiteRookAMoved ? 4 : 0) | (whiteRookHMoved ? 8 : 0)
+                | (blackRookAMoved ? 16 : 0) | (blackRookHMoved ? 32 : 0);
+    }
 
-        squares[startRow][startCol] = originalStartPiece;
-        squares[endRow][endCol] = originalEndPiece;
-        if (originalEnPassantCapturedPawn != null) {
-            int capturedPawnRow = (originalStartPiece.getColor() == Piece.PieceColor.WHITE) ? endRow + 1 : endRow - 1;
-            int capturedPawnCol = endCol;
-            squares[capturedPawnRow][capturedPawnCol] = originalEnPassantCapturedPawn;
+    /**
+     * The castling rights left, as FEN's KQkq: bit 0 White short, 1 White long, 2 Black short,
+     * 3 Black long. The moved flags record how a right was lost; a king move and a FEN without
+     * the right set different flags, so anything that identifies a position, such as the
+     * Zobrist key, uses this instead.
+     */
+    int castlingRights() {
+        int rights = 0;
+        if (!whiteKingMoved) {
+            if (!whiteRookHMoved) rights |= WHITE_SHORT;
+            if (!whiteRookAMoved) rights |= WHITE_LONG;
         }
-        if (parsedMove.isKingsideCastle || parsedMove.isQueensideCastle) {
-            squares[startRow][rookOriginalCol] = originalRookPiece;
-            squares[endRow][rookSimulatedEndCol] = null;
+        if (!blackKingMoved) {
+            if (!blackRookHMoved) rights |= BLACK_SHORT;
+            if (!blackRookAMoved) rights |= BLACK_LONG;
         }
+        return rights;
+    }
+
+    /**
+     * Sets the moved flags from a castlingRights() mask. A missing right is stored as a moved
+     * rook, or as a moved king if both of that side's rights are gone.
+     */
+    private void setCastlingRights(int rights) {
+        whiteRookHMoved = (rights & WHITE_SHORT) == 0;
+        whiteRookAMoved = (rights & WHITE_LONG) == 0;
+        whiteKingMoved = (rights & (WHITE_SHORT | WHITE_LONG)) == 0;
+        blackRookHMoved = (rights & BLACK_SHORT) == 0;
+        blackRookAMoved = (rights & BLACK_LONG) == 0;
+        blackKingMoved = (rights & (BLACK_SHORT | BLACK_LONG)) == 0;
+    }
 
+    private void restoreCastlingFlags(int packed) {
+        whiteKingMoved = (packed & 1) != 0;
+        blackKingMoved = (packed & 2) != 0;
+        whiteRookAMoved = (packed & 4) != 0;
+        whiteRookHMoved = (packed & 8) != 0;
+        blackRookAMoved = (packed & 16) != 0;
+        blackRookHMoved = (packed & 32) != 0;
+    }
 
-        if (isKingInCheckAfterMove) {
+    private boolean isValidMoveAttempt(ParsedMove parsedMove) {
+        if (parsedMove.startRow < 0 || parsedMove.startRow >= 8 || parsedMove.startCol < 0 || parsedMove.startCol >= 8 ||
+                parsedMove.endRow < 0 || parsedMove.endRow >= 8 || parsedMove.endCol < 0 || parsedMove.endCol >= 8) {
             return false;
         }
+        return isValidMoveAttempt(encodeMove(parsedMove));
+    }
 
-        return true;
+    /**
+     * Full legality check of an encoded move against the rules and king safety, without allocating.
+     */
+    private boolean isValidMoveAttempt(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int startRow = rowOf(from);
+        int startCol = colOf(from);
+        int endRow = rowOf(to);
+        int endCol = colOf(to);
+
+        Piece pieceToMove = squares[from];
+        Piece targetPiece = squares[to];
+
+        if (pieceToMove == null || pieceToMove.getColor() != currentPlayerTurn) {
+            return false;
+        }
+
+        boolean isTargetEmpty = (targetPiece == null);
+        boolean isTargetOccupiedByOpponent = (targetPiece != null && targetPiece.getColor() != currentPlayerTurn);
+        boolean isTargetOccupiedByOwn = (targetPiece != null && targetPiece.getColor() == currentPlayerTurn);
+
+        if (isTargetOccupiedByOwn && from != to) {
+            return false;
+        }
+
+        if (!isValidPieceMove(startRow, startCol, endRow, endCol)) {
+            return false;
+        }
+
+        if (pieceToMove.getType() == Piece.PieceType.PAWN) {
+            if (startCol == endCol) {
+                if (!isTargetEmpty) return false;
+            } else if (Move.flags(move) == Move.EN_PASSANT) {
+                if (pieceToMove.getColor() == Piece.PieceColor.WHITE && startRow != 3) return false;
+                if (pieceToMove.getColor() == Piece.PieceColor.BLACK && startRow != 4) return false;
+                Piece capturedPawn = pieceAt(startRow, endCol);
+                if (capturedPawn == null || capturedPawn.getType() != Piece.PieceType.PAWN || capturedPawn.getColor() == currentPlayerTurn) return false;
+            } else {
+                if (!isTargetOccupiedByOpponent) return false;
+            }
+        }
+
+        return isLegalAfterMove(move);
+    }
+
+    /**
+     * Returns true if playing the (pseudo-legal) move does not leave the mover's king in check.
+     */
+    private boolean isLegalAfterMove(int move) {
+        Piece.PieceColor mover = currentPlayerTurn;
+        makeMove(move);
+        boolean isKingInCheckAfterMove = isKingInCheck(mover);
+        unmakeMove();
+        return !isKingInCheckAfterMove;
     }
 
 
@@ -938,6 +2166,19 @@ public class Board {
         } else {
             currentPlayerTurn = Piece.PieceColor.WHITE;
         }
+        zobristKey ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    /**
+     * Installs the listener that receives the board's messages (rejected moves, castling,
+     * promotions, setup). Pass {@link BoardListener#NONE} to silence them again.
+     */
+    public void setListener(BoardListener listener) {
+        this.listener = (listener != null) ? listener : BoardListener.NONE;
+    }
+
+    public BoardListener getListener() {
+        return listener;
     }
 
     public Piece.PieceColor getCurrentPlayerTurn() {
@@ -968,7 +2209,7 @@ public class Board {
         for (int r = 0; r < 8; r++) {
             System.out.print((char)('1' + (7 - r)) + "|");
             for (int c = 0; c < 8; c++) {
-                Piece piece = squares[r][c];
+                Piece piece = pieceAt(r, c);
                 System.out.print(" " + (piece != null ? piece.getAsciiChar() : " ") + " |");
             }
             System.out.println((char)('1' + (7 - r)));
@@ -988,14 +2229,6 @@ public class Board {
         whiteRookHMoved = false;
         blackRookAMoved = false;
         blackRookHMoved = false;
-    }
-
-    /**
-     * Sets the en Passant target square directly for testing specific scenarios.
-     * @param row The row of the en passant target square.
-     * @param col The column of the en passant target square.
-     */
-    public void setEnPassantTargetSquareForTest(int row, int col) {
-        this.enPassantTargetSquare = new int[]{row, col};
+        zobristKey = computeZobristKey();
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package org.example.chess;
+
+/**
+ * Receives the human-readable messages a Board produces while setting up, validating and
+ * playing moves. Boards start with {@link #NONE}, so searches, simulations and servers that
+ * never read the messages do no console I/O; interactive front-ends install {@link #CONSOLE}.
+ */
+public interface BoardListener {
+
+    /** Discards every message. */
+    BoardListener NONE = new BoardListener() {
+    };
+
+    /** Prints messages to standard output and errors to standard error. */
+    BoardListener CONSOLE = new BoardListener() {
+        @Override
+        public void onInfo(String message) {
+            System.out.println(message);
+        }
+
+        @Override
+        public void onError(String message) {
+            System.err.println(message);
+        }
+    };
+
+    /**
+     * Called for progress and validation messages, e.g. "Castling performed!" or why a move was rejected.
+     */
+    default void onInfo(String message) {
+    }
+
+    /**
+     * Called when the board is asked to do something its state cannot support, e.g. unmaking with no move made.
+     */
+    default void onError(String message) {
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.chess;
+
+/**
+ * Tapered evaluation: material plus piece-square tables, summed separately for the middlegame
+ * and the endgame and blended by how much material is left. Board reports every piece it puts
+ * on or takes off a square, so the sums stay current and evaluate() is O(1).
+ *
+ * <p>Scores are in centipawns; the running sums are from White's point of view.
+ */
+final class Evaluator {
+
+    // Game phase weight per PieceType ordinal: 24 with all minor and major pieces on the board.
+    private static final int[] PHASE_WEIGHT = {0, 4, 2, 1, 1, 0};
+    static final int MAX_PHASE = 24;
+
+    // Endgame material per PieceType ordinal; the middlegame uses Board's PIECE_VALUES.
+    private static final int[] ENDGAME_VALUES = {0, 940, 520, 300, 290, 120};
+
+    // Piece-square tables from White's side, written as seen on a diagram: rank 8 first.
+    private static final int[] PAWN_MG = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0};
+    private static final int[] PAWN_EG = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0};
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0};
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20};
+    private static final int[] KING_MG = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20};
+    private static final int[] KING_EG = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+
+    // Material plus table value of each piece on each square, signed so that Black's pieces
+    // count negative: MIDDLEGAME[Board.bitboardIndex(type, color)][square].
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        // Tables by PieceType ordinal: KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN.
+        int[][] middlegameTables = {KING_MG, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_MG};
+        int[][] endgameTables = {KING_EG, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_EG};
+        for (Piece.PieceType type : Piece.PieceType.values()) {
+            int t = type.ordinal();
+            int white = Board.bitboardIndex(type, Piece.PieceColor.WHITE);
+            int black = Board.bitboardIndex(type, Piece.PieceColor.BLACK);
+            for (int square = 0; square < 64; square++) {
+                // Square 0 is a1, which is the first entry of the last diagram row; Black's
+                // pieces read the same table upside down.
+                int whiteEntry = square ^ 56;
+                int blackEntry = square;
+                MIDDLEGAME[white][square] = Board.pieceValue(type) + middlegameTables[t][whiteEntry];
+                MIDDLEGAME[black][square] = -(Board.pieceValue(type) + middlegameTables[t][blackEntry]);
+                ENDGAME[white][square] = ENDGAME_VALUES[t] + endgameTables[t][whiteEntry];
+                ENDGAME[black][square] = -(ENDGAME_VALUES[t] + endgameTables[t][blackEntry]);
+            }
+        }
+    }
+
+    private int middlegame;
+    private int endgame;
+    private int phase;
+
+    /**
+     * Accounts for a piece put on a square.
+     * @param index The piece's Board.bitboardIndex().
+     */
+    void add(int index, int square) {
+        middlegame += MIDDLEGAME[index][square];
+        endgame += ENDGAME[index][square];
+        phase += PHASE_WEIGHT[index % 6];
+    }
+
+    /**
+     * Accounts for a piece taken off a square.
+     * @param index The piece's Board.bitboardIndex().
+     */
+    void remove(int index, int square) {
+        middlegame -= MIDDLEGAME[index][square];
+        endgame -= ENDGAME[index][square];
+        phase -= PHASE_WEIGHT[index % 6];
+    }
+
+    void clear() {
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+    }
+
+    void copyFrom(Evaluator other) {
+        middlegame = other.middlegame;
+        endgame = other.endgame;
+        phase = other.phase;
+    }
+
+    /**
+     * @return The game phase, from MAX_PHASE with every piece on the board down to 0 with
+     *         only kings and pawns left (more than MAX_PHASE after extra promotions).
+     */
+    int phase() {
+        return phase;
+    }
+
+    /**
+     * @param sideToMove The side whose point of view the score is given from.
+     * @return The blended middlegame and endgame score in centipawns.
+     */
+    int evaluate(Piece.PieceColor sideToMove) {
+        int weight = Math.min(phase, MAX_PHASE);
+        int score = (middlegame * weight + endgame * (MAX_PHASE - weight)) / MAX_PHASE;
+        return (sideToMove == Piece.PieceColor.WHITE) ? score : -score;
+    }
+}
@@ -0,0 +1,321 @@
+package org.example.chess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Line-based TCP game server. Every connection is one game session on its own Board, served by
+ * its own virtual thread, so a node can hold tens of thousands of idle games without a platform
+ * thread per connection.
+ *
+ * <p>Protocol (one command per line, one response line per command):
+ * <pre>
+ *   new              -> OK WHITE                  start over from the initial position
+ *   move &lt;notation&gt;  -> OK &lt;side to move&gt; [CHECK] | OK CHECKMATE &lt;winner&gt; | OK STALEMATE
+ *                       | OK DRAW &lt;reason&gt;         THREEFOLD_REPETITION, FIFTY_MOVE_RULE or INSUFFICIENT_MATERIAL
+ *                       | PROMOTE                 pawn reached the last rank; answer with promote
+ *                       | ERR &lt;reason&gt;
+ *   promote Q|R|B|N  -> same as move
+ *   moves            -> OK &lt;legal moves in coordinate notation, space separated&gt; | ERR while a promotion is pending
+ *   board            -> OK &lt;64 characters, rank 8 first, '.' for empty squares&gt;
+ *   turn             -> OK WHITE | OK BLACK
+ *   quit             -> BYE
+ * </pre>
+ * A line longer than {@link #MAX_LINE_LENGTH} characters is answered with "ERR Line too long."
+ * and the connection is closed.
+ * Moves use the same notation and rules as {@link Board#move(String)}: SAN or coordinates.
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7878;
+    // Pending connections the OS may queue; bursts of new players should not be refused.
+    private static final int ACCEPT_BACKLOG = 4096;
+    // Longest command line accepted. Real commands are a few dozen characters; the cap keeps a
+    // client that never sends a newline from making its session buffer without bound.
+    static final int MAX_LINE_LENGTH = 256;
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * Binds the server; call {@link #start()} to begin accepting connections.
+     * @param port TCP port, or 0 to pick a free one (see {@link #getPort()}).
+     */
+    public GameServer(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Starts accepting connections on a virtual thread and returns immediately.
+     */
+    public void start() {
+        sessions.submit(this::acceptLoop);
+    }
+
+    private void acceptLoop() {
+        long backoffMillis = 0;
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                sessions.submit(() -> serve(channel));
+                backoffMillis = 0;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // Failures such as running out of file descriptors persist for a while; retrying
+                // at once would only spin, so wait longer after each consecutive failure.
+                backoffMillis = Math.min(Math.max(2 * backoffMillis, MIN_ACCEPT_BACKOFF_MILLIS), MAX_ACCEPT_BACKOFF_MILLIS);
+                System.err.println("Accept failed: " + e.getMessage() + "; retrying in " + backoffMillis + " ms");
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        activeSessions.incrementAndGet();
+        try (channel;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8), MAX_LINE_LENGTH);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            GameSession session = new GameSession();
+            LineReader lines = new LineReader(in);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                String response = session.handle(line.trim());
+                out.write(response);
+                out.newLine();
+                out.flush();
+                if (response.equals("BYE")) {
+                    break;
+                }
+            }
+            if (lines.isTooLong()) {
+                out.write("ERR Line too long.");
+                out.newLine();
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client went away; nothing to clean up beyond the channel.
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting connections and interrupts every open session.
+     */
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        sessions.shutdownNow();
+    }
+
+    /**
+     * Reads lines of at most MAX_LINE_LENGTH characters. A longer line ends the input.
+     */
+    static final class LineReader {
+        private final BufferedReader in;
+        private final char[] line = new char[MAX_LINE_LENGTH];
+        private boolean tooLong;
+
+        LineReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        /**
+         * @return The next line without its terminator, or null at the end of the input or once a
+         *         line has exceeded the limit (see {@link #isTooLong()}).
+         */
+        String readLine() throws IOException {
+            int length = 0;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') {
+                    return new String(line, 0, (length > 0 && line[length - 1] == '\r') ? length - 1 : length);
+                }
+                if (length == line.length) {
+                    tooLong = true;
+                    return null;
+                }
+                line[length++] = (char) c;
+            }
+            return (length > 0) ? new String(line, 0, length) : null;
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+    }
+
+    /**
+     * One client's game: a Board plus the promotion square waiting for a "promote" command.
+     */
+    static class GameSession {
+        private static final String PROMOTION_PENDING_ERROR = "ERR Promotion pending; send 'promote Q|R|B|N'.";
+
+        private Board board;
+        private String lastMessage;
+        private ParsedMove pendingPromotion;
+
+        GameSession() {
+            reset();
+        }
+
+        private void reset() {
+            board = new Board();
+            // Keep the board's last explanation so a rejected move can say why.
+            board.setListener(new BoardListener() {
+                @Override
+                public void onInfo(String message) {
+                    lastMessage = message;
+                }
+            });
+            pendingPromotion = null;
+        }
+
+        String handle(String line) {
+            int space = line.indexOf(' ');
+            String command = (space < 0 ? line : line.substring(0, space)).toLowerCase();
+            String argument = (space < 0) ? "" : line.substring(space + 1).trim();
+
+            switch (command) {
+                case "new":
+                    reset();
+                    return "OK " + board.getCurrentPlayerTurn();
+                case "move":
+                    return move(argument);
+                case "promote":
+                    return promote(argument);
+                case "moves":
+                    if (pendingPromotion != null) {
+                        // The pawn is already on the last rank; the board has no legal moves to offer.
+                        return PROMOTION_PENDING_ERROR;
+                    }
+                    return "OK " + legalMoves();
+                case "board":
+                    return "OK " + boardString();
+                case "turn":
+                    return "OK " + board.getCurrentPlayerTurn();
+                case "quit":
+                    return "BYE";
+                default:
+                    return "ERR Unknown command '" + command + "'.";
+            }
+        }
+
+        private String move(String notation) {
+            if (pendingPromotion != null) {
+                return PROMOTION_PENDING_ERROR;
+            }
+            if (notation.isEmpty()) {
+                return "ERR Missing move.";
+            }
+            lastMessage = null;
+            ParsedMove parsedMove = board.parseAlgebraicNotation(notation);
+            Board.MoveResult result = (parsedMove != null) ? board.movePiece(parsedMove) : Board.MoveResult.INVALID;
+            switch (result) {
+                case PROMOTION_PENDING:
+                    pendingPromotion = parsedMove;
+                    return "PROMOTE";
+                case VALID:
+                    return status();
+                default:
+                    return "ERR " + (lastMessage != null ? lastMessage : "Invalid move.");
+            }
+        }
+
+        private String promote(String choice) {
+            if (pendingPromotion == null) {
+                return "ERR No promotion pending.";
+            }
+            Piece.PieceType type;
+            switch (choice.toUpperCase()) {
+                case "Q": type = Piece.PieceType.QUEEN; break;
+                case "R": type = Piece.PieceType.ROOK; break;
+                case "B": type = Piece.PieceType.BISHOP; break;
+                case "N": type = Piece.PieceType.KNIGHT; break;
+                default: return "ERR Promote to Q, R, B or N.";
+            }
+            board.finalizePromotion(pendingPromotion.endRow, pendingPromotion.endCol, type);
+            pendingPromotion = null;
+            return status();
+        }
+
+        private String status() {
+            Piece.PieceColor toMove = board.getCurrentPlayerTurn();
+            boolean inCheck = board.isKingInCheck(toMove);
+            if (board.generateLegalMoves(new int[Move.MAX_MOVES]) == 0) {
+                if (inCheck) {
+                    return "OK CHECKMATE " + (toMove == Piece.PieceColor.WHITE ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE);
+                }
+                return "OK STALEMATE";
+            }
+            Board.DrawReason drawReason = board.getDrawReason();
+            if (drawReason != null) {
+                return "OK DRAW " + drawReason;
+            }
+            return "OK " + toMove + (inCheck ? " CHECK" : "");
+        }
+
+        private String legalMoves() {
+            int[] moves = new int[Move.MAX_MOVES];
+            int count = board.generateLegalMoves(moves);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(Move.toUci(moves[i]));
+            }
+            return sb.toString();
+        }
+
+        private String boardString() {
+            StringBuilder sb = new StringBuilder(64);
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    Piece piece = board.getPiece(row, col);
+                    sb.append(piece != null ? piece.getAsciiChar() : ".");
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Usage: GameServer [port]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        server.start();
+        System.out.println("Chess game server listening on port " + server.getPort() + ".");
+        Thread.currentThread().join(); // Serve until the process is killed.
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lazy SMP: the main search runs on the calling thread while helper threads search the same
+ * root on their own board copies. All of them share one transposition table, which is where
+ * the helpers' work pays off for the main search. When the main search finishes, the helpers
+ * are stopped and the deepest completed result is played.
+ */
+public class LazySmpSearch {
+
+    private final int threadCount;
+    private final TranspositionTable table;
+    private final ExecutorService helpers;
+
+    // The running main search, so stop() can reach it from another thread; guarded by this.
+    private Search runningSearch;
+    private long nodeLimit;
+
+    private long nodes;
+    private int completedDepth;
+    private int bestScore;
+    private long elapsedNanos;
+
+    /**
+     * @param threadCount Total number of search threads, including the calling thread.
+     * @param table Transposition table shared by all threads.
+     */
+    public LazySmpSearch(int threadCount, TranspositionTable table) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threadCount);
+        }
+        this.threadCount = threadCount;
+        this.table = table;
+        this.helpers = (threadCount > 1) ? Executors.newFixedThreadPool(threadCount - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Searches the board's position on all threads. The board itself is only used by the
+     * calling thread and is left unchanged.
+     * @see Search#findBestMove(int, long)
+     */
+    public int findBestMove(Board board, int maxDepth, long timeLimitMillis) {
+        long start = System.nanoTime();
+        // The node limit applies to all threads together, as the reported node count does.
+        AtomicLong sharedNodes = new AtomicLong();
+        Search mainSearch = new Search(board, table);
+        mainSearch.setNodeLimit(nodeLimit);
+        mainSearch.setSharedNodeCounter(sharedNodes);
+        synchronized (this) {
+            runningSearch = mainSearch;
+        }
+        List<Search> helperSearches = new ArrayList<>();
+        List<Future<Integer>> helperMoves = new ArrayList<>();
+        for (int id = 1; id < threadCount; id++) {
+            Search helper = new Search(board.copy(), table);
+            helper.setHelperId(id);
+            helper.setNodeLimit(nodeLimit);
+            helper.setSharedNodeCounter(sharedNodes);
+            helperSearches.add(helper);
+            // Helpers run until the main search stops them.
+            helperMoves.add(helpers.submit(() -> helper.findBestMove(Search.MAX_DEPTH, 0)));
+        }
+
+        int bestMove = mainSearch.findBestMove(maxDepth, timeLimitMillis);
+        completedDepth = mainSearch.getCompletedDepth();
+        bestScore = mainSearch.getBestScore();
+        nodes = mainSearch.getNodes();
+
+        for (Search helper : helperSearches) {
+            helper.stop();
+        }
+        for (int i = 0; i < helperSearches.size(); i++) {
+            Search helper = helperSearches.get(i);
+            int helperMove = awaitHelper(helperMoves.get(i));
+            nodes += helper.getNodes();
+            if (helperMove != Move.NONE && helper.getCompletedDepth() > completedDepth) {
+                bestMove = helperMove;
+                completedDepth = helper.getCompletedDepth();
+                bestScore = helper.getBestScore();
+            }
+        }
+
+        synchronized (this) {
+            runningSearch = null;
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    /**
+     * Asks a running findBestMove() on another thread to return as soon as possible. Has no
+     * effect when no search is running, so a late stop cannot cut the next search short.
+     * @see Search#stop()
+     */
+    public synchronized void stop() {
+        if (runningSearch != null) {
+            runningSearch.stop();
+        }
+    }
+
+    /**
+     * Limits later calls to about the given number of nodes, summed over all threads.
+     * @see Search#setNodeLimit(long)
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    private static int awaitHelper(Future<Integer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Move.NONE;
+        } catch (ExecutionException e) {
+            System.err.println("Search helper failed: " + e.getCause());
+            return Move.NONE;
+        }
+    }
+
+    /**
+     * Stops the helper threads. The search cannot be used afterwards.
+     */
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @return Nodes visited by the last search, summed over all threads.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public long getNodesPerSecond() {
+        return Perft.nodesPerSecond(nodes, elapsedNanos);
+    }
+
+    /**
+     * Scaling report: searches each standard perft position to a fixed depth with 1, 2, 4, ...
+     * threads and prints time-to-depth, nodes per second and the speedup over one thread.
+     * Usage: LazySmpSearch [depth] [maxThreads] [tableSizeMb]
+     */
+    public static void main(String[] args) {
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 7;
+        int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int sizeMb = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+
+        Board[] positions = new Board[Perft.STANDARD_POSITIONS.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = Perft.STANDARD_POSITIONS[i].createBoard();
+        }
+
+        TranspositionTable table = new TranspositionTable(sizeMb);
+        long baselineNanos = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            LazySmpSearch search = new LazySmpSearch(threads, table);
+            long totalNodes = 0;
+            long totalNanos = 0;
+            for (Board position : positions) {
+                table.clear();
+                search.findBestMove(position, depth, 0);
+                totalNodes += search.getNodes();
+                totalNanos += search.elapsedNanos;
+            }
+            search.shutdown();
+            if (threads == 1) {
+                baselineNanos = totalNanos;
+            }
+            System.out.printf("threads %2d: depth %d in %d ms, %,d nodes (%,d nps), speedup %.2fx%n",
+                    threads, depth, totalNanos / 1_000_000, totalNodes, Perft.nodesPerSecond(totalNodes, totalNanos),
+                    (double) baselineNanos / totalNanos);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
@@ -1,16 +1,38 @@
 package org.example.chess;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 public class Main {
     private static Scanner scanner = new Scanner(System.in);
     private static Board currentBoard;
+    // Time the AI may spend searching each move.
+    private static final long AI_THINK_TIME_MILLIS = 1000;
+    // Search threads for the AI; override with -Dchess.threads=N.
+    private static final int AI_THREADS = Integer.getInteger("chess.threads", Runtime.getRuntime().availableProcessors());
 
-    public static void main(String[] args) {
+    /**
+     * Starts the console menu, or the UCI engine when the first argument is "uci" (for chess
+     * GUIs and match runners, which talk to the engine over standard input and output).
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equalsIgnoreCase("uci")) {
+            UciEngine.main(args);
+            return;
+        }
         mainMenu();
         scanner.close();
     }
 
+    /**
+     * Creates a board that reports its messages (invalid moves, castling, promotions) on the console.
+     */
+    private static Board newConsoleBoard() {
+        Board board = new Board();
+        board.setListener(BoardListener.CONSOLE);
+        return board;
+    }
+
     public static void mainMenu() {
         int choice;
         do {
@@ -19,7 +41,9 @@ public class Main {
             System.out.println("2. Human vs Human Match");
             System.out.println("3. AI vs AI Match");
             System.out.println("4. Training (Custom Board Setup)");
-            System.out.println("5. Exit");
+            System.out.println("5. Perft Benchmark");
+            System.out.println("6. Self-Play Batch (headless)");
+            System.out.println("7. Exit");
             System.out.print("Enter your choice: ");
 
             while (!scanner.hasNextInt()) {
@@ -32,28 +56,34 @@ public class Main {
 
             switch (choice) {
                 case 1:
-                    currentBoard = new Board(); // Fresh board for standard game
+                    currentBoard = newConsoleBoard(); // Fresh board for standard game
                     startHumanVsAIMatch(currentBoard);
                     break;
                 case 2:
-                    currentBoard = new Board(); // Fresh board for standard game
+                    currentBoard = newConsoleBoard(); // Fresh board for standard game
                     startHumanVsHumanMatch(currentBoard);
                     break;
                 case 3:
-                    currentBoard = new Board(); // Fresh board for standard game
+                    currentBoard = newConsoleBoard(); // Fresh board for standard game
                     startAIVsAIMatch(currentBoard);
                     break;
                 case 4:
-                    currentBoard = new Board(); // Ensure a board instance exists before starting training setup
+                    currentBoard = newConsoleBoard(); // Ensure a board instance exists before starting training setup
                     startTrainingMode();
                     break;
                 case 5:
+                    startPerftBenchmark();
+                    break;
+                case 6:
+                    startSelfPlayBatch();
+                    break;
+                case 7:
                     System.out.println("Exiting Chess Game. Goodbye!");
                     break;
                 default:
-                    System.out.println("Invalid choice. Please enter a number between 1 and 5.");
+                    System.out.println("Invalid choice. Please enter a number between 1 and 7.");
             }
-        } while (choice != 5);
+        } while (choice != 7);
     }
 
     public static void startHumanVsAIMatch(Board board) {
@@ -99,8 +129,52 @@ public class Main {
         runGameLoop(board, null, Piece.PieceColor.BLACK);
     }
 
+    /**
+     * Runs the standard perft suite and prints node counts and nodes per second.
+     */
+    public static void startPerftBenchmark() {
+        System.out.print("Maximum perft depth (1-5): ");
+        int maxDepth = 4;
+        String depthInput = scanner.nextLine().trim();
+        try {
+            maxDepth = Integer.parseInt(depthInput);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Defaulting to depth " + maxDepth + ".");
+        }
+
+        System.out.println("--- Perft Benchmark ---");
+        Perft.runStandardSuite(maxDepth);
+    }
+
+    /**
+     * Plays a batch of engine-vs-engine games without rendering and prints the totals.
+     */
+    public static void startSelfPlayBatch() {
+        System.out.print("Number of games: ");
+        int games = readInt(100);
+        System.out.print("Worker threads: ");
+        int threads = readInt(Runtime.getRuntime().availableProcessors());
+
+        System.out.println("--- Self-Play: " + games + " games on " + threads + " threads ---");
+        System.out.println(new SelfPlay().run(games, threads, System.nanoTime()));
+    }
+
+    private static int readInt(int defaultValue) {
+        String input = scanner.nextLine().trim();
+        try {
+            int value = Integer.parseInt(input);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the default.
+        }
+        System.out.println("Invalid input. Using " + defaultValue + ".");
+        return defaultValue;
+    }
+
     public static void startTrainingMode() {
-        Board trainingBoard = new Board(); // Create a specific board for training
+        Board trainingBoard = newConsoleBoard(); // Create a specific board for training
         trainingBoard.clearBoard(); // Start with a blank board
         currentBoard = trainingBoard;
 
@@ -185,6 +259,11 @@ public class Main {
      */
     public static void runGameLoop(Board board, Piece.PieceColor humanPlayerColor, Piece.PieceColor aiPlayerColor) {
         System.out.println("Type 'exit' to quit at any time during the match.");
+        // Only games with an AI player need the search's table and helper threads.
+        LazySmpSearch search = (aiPlayerColor != null)
+                ? new LazySmpSearch(AI_THREADS, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB))
+                : null;
+        int aiMove = Move.NONE;
         while (true) {
             board.printBoard();
             Piece.PieceColor currentPlayer = board.getCurrentPlayerTurn();
@@ -205,6 +284,11 @@ public class Main {
                 }
                 break;
             }
+            Board.DrawReason drawReason = board.getDrawReason();
+            if (drawReason != null) {
+                System.out.println("\n--- DRAW by " + drawReason.toString().toLowerCase().replace('_', ' ') + ". ---");
+                break;
+            }
 
             // --- Corrected Logic for Turn Determination ---
             // The logic now correctly determines if the current player is AI based on the aiPlayerColor parameter.
@@ -221,15 +305,13 @@ public class Main {
                 moveResult = board.move(moveInput);
             } else { // AI's turn
                 System.out.println(currentPlayer + "'s turn (AI). Thinking...");
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    System.out.println("AI thinking interrupted.");
-                }
+                aiMove = search.findBestMove(board, Search.MAX_DEPTH, AI_THINK_TIME_MILLIS);
 
-                moveInput = tempFoundMove;
+                moveInput = Board.toMoveString(aiMove);
                 System.out.println(currentPlayer + " AI chooses move: " + moveInput);
+                System.out.printf("(depth %d, score %d, %,d nodes in %d ms, %,d nps on %d threads)%n",
+                        search.getCompletedDepth(), search.getBestScore(), search.getNodes(),
+                        search.getElapsedMillis(), search.getNodesPerSecond(), search.getThreadCount());
                 moveResult = board.move(moveInput);
             }
 
@@ -243,8 +325,8 @@ public class Main {
                 if (promotingPawnColor == humanPlayerColor || (aiPlayerColor == null && promotingPawnColor != null)) {
                     chosenType = promptForPromotionPiece(scanner);
                 } else {
-                    System.out.println(promotingPawnColor + " AI automatically promotes to QUEEN.");
-                    chosenType = Piece.PieceType.QUEEN;
+                    chosenType = Move.isPromotion(aiMove) ? Move.promotionType(aiMove) : Piece.PieceType.QUEEN;
+                    System.out.println(promotingPawnColor + " AI promotes to " + chosenType + ".");
                 }
 
                 ParsedMove parsedMove = board.parseAlgebraicNotation(moveInput);
@@ -265,6 +347,9 @@ public class Main {
                 }
             }
         }
+        if (search != null) {
+            search.shutdown();
+        }
     }
 
     private static Piece.PieceType promptForPromotionPiece(Scanner scanner) {
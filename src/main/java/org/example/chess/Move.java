@@ -0,0 +1,123 @@
+package org.example.chess;
+
+/**
+ * Moves packed into a single int so move lists can live in plain int[] buffers.
+ * Bits 0-5 hold the from square, bits 6-11 the to square and bits 12-15 the flags
+ * (square 0 = a1, 63 = h8, same indexing as Board's bitboards).
+ */
+public final class Move {
+
+    /** Upper bound on the number of moves in any chess position; size move buffers with this. */
+    public static final int MAX_MOVES = 256;
+
+    public static final int NONE = 0;
+
+    // --- Flags ---
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    // Promotions: the low two bits pick the piece (knight, bishop, rook, queen).
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    public static final int PROMOTE_KNIGHT = 0;
+    public static final int PROMOTE_BISHOP = 1;
+    public static final int PROMOTE_ROOK = 2;
+    public static final int PROMOTE_QUEEN = 3;
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        // CAPTURE, EN_PASSANT and PROMOTION_CAPTURE all carry the capture bit.
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * @return The piece a promotion move promotes to, or null for any other move.
+     */
+    public static Piece.PieceType promotionType(int move) {
+        int flags = flags(move);
+        if ((flags & PROMOTION) == 0) {
+            return null;
+        }
+        switch (flags & 3) {
+            case PROMOTE_KNIGHT: return Piece.PieceType.KNIGHT;
+            case PROMOTE_BISHOP: return Piece.PieceType.BISHOP;
+            case PROMOTE_ROOK:   return Piece.PieceType.ROOK;
+            default:             return Piece.PieceType.QUEEN;
+        }
+    }
+
+    /**
+     * @return The promotion code (PROMOTE_KNIGHT ... PROMOTE_QUEEN) to OR into the PROMOTION flags.
+     */
+    public static int promotionCode(Piece.PieceType type) {
+        switch (type) {
+            case KNIGHT: return PROMOTE_KNIGHT;
+            case BISHOP: return PROMOTE_BISHOP;
+            case ROOK:   return PROMOTE_ROOK;
+            default:     return PROMOTE_QUEEN;
+        }
+    }
+
+    /**
+     * Expands an encoded move into a ParsedMove for the row/column based Board API.
+     * Use {@link Board#encodeMove(ParsedMove)} for the opposite direction.
+     */
+    public static ParsedMove toParsedMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int flags = flags(move);
+        ParsedMove parsedMove = new ParsedMove(Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to),
+                flags == KING_CASTLE, flags == QUEEN_CASTLE);
+        parsedMove.promotionType = promotionType(move);
+        return parsedMove;
+    }
+
+    /**
+     * Coordinate notation as used by perft tools and UCI, e.g. "e2e4", "e1g1" or "e7e8q".
+     */
+    public static String toUci(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        int flags = flags(move);
+        if ((flags & PROMOTION) != 0) {
+            sb.append("nbrq".charAt(flags & 3));
+        }
+        return sb.toString();
+    }
+
+    static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.chess;
+
+/**
+ * Perft harness: walks the legal move tree of the well-known perft test positions, checks the
+ * node counts against the published values and reports move generation throughput.
+ */
+public class Perft {
+
+    /**
+     * A perft test position with its published node counts (expectedNodes[0] is depth 1).
+     */
+    public static class TestPosition {
+        public final String name;
+        public final String fen;
+        public final long[] expectedNodes;
+
+        TestPosition(String name, String fen, long... expectedNodes) {
+            this.name = name;
+            this.fen = fen;
+            this.expectedNodes = expectedNodes;
+        }
+
+        /**
+         * Builds a fresh board holding this position.
+         */
+        public Board createBoard() {
+            return Board.fromFen(fen);
+        }
+    }
+
+    public static final TestPosition[] STANDARD_POSITIONS = {
+            new TestPosition("Start position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20L, 400L, 8902L, 197281L, 4865609L),
+            new TestPosition("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48L, 2039L, 97862L, 4085603L),
+            new TestPosition("Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14L, 191L, 2812L, 43238L, 674624L),
+            new TestPosition("Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6L, 264L, 9467L, 422333L),
+            new TestPosition("Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44L, 1486L, 62379L, 2103487L),
+            new TestPosition("Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46L, 2079L, 89890L, 3894594L)
+    };
+
+    public static void main(String[] args) {
+        int maxDepth = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        boolean passed = runStandardSuite(maxDepth);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs every standard position up to the given depth (capped by the published counts),
+     * printing node counts, timings and nodes per second.
+     * @param maxDepth The deepest depth to run for each position.
+     * @return true if every node count matched.
+     */
+    public static boolean runStandardSuite(int maxDepth) {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for (TestPosition position : STANDARD_POSITIONS) {
+            Board board = position.createBoard();
+            System.out.println("--- " + position.name + " ---");
+            int depthLimit = Math.min(maxDepth, position.expectedNodes.length);
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                long start = System.nanoTime();
+                long nodes = board.perft(depth);
+                long elapsed = System.nanoTime() - start;
+                long expected = position.expectedNodes[depth - 1];
+                boolean passed = (nodes == expected);
+                allPassed &= passed;
+                totalNodes += nodes;
+                totalNanos += elapsed;
+
+                System.out.printf("depth %d: %,d nodes in %d ms (%,d nps) %s%n",
+                        depth, nodes, elapsed / 1_000_000, nodesPerSecond(nodes, elapsed),
+                        passed ? "OK" : "MISMATCH, expected " + expected);
+            }
+        }
+
+        System.out.printf("Total: %,d nodes in %d ms (%,d nps). %s%n",
+                totalNodes, totalNanos / 1_000_000, nodesPerSecond(totalNodes, totalNanos),
+                allPassed ? "All node counts match." : "Node count mismatches found!");
+        return allPassed;
+    }
+
+    static long nodesPerSecond(long nodes, long nanos) {
+        return (nanos > 0) ? nodes * 1_000_000_000L / nanos : 0;
+    }
+}
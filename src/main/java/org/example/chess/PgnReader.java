@@ -0,0 +1,238 @@
+package org.example.chess;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams games out of a PGN file one at a time. Only the game being read is held in memory,
+ * so archives of any size can be read with constant memory. Comments, variations, NAGs and
+ * move numbers are skipped; what is left is the tag pairs and the main line in SAN.
+ */
+public class PgnReader implements Closeable {
+
+    private static final int READ_BUFFER_CHARS = 1 << 16;
+
+    /**
+     * One game: its tag pairs in file order, its main line in SAN and its result.
+     */
+    public static class Game {
+        private final Map<String, String> tags = new LinkedHashMap<>();
+        private final List<String> moves = new ArrayList<>();
+        private String result = "*";
+
+        public Map<String, String> getTags() {
+            return Collections.unmodifiableMap(tags);
+        }
+
+        public String getTag(String name) {
+            return tags.get(name);
+        }
+
+        public List<String> getMoves() {
+            return Collections.unmodifiableList(moves);
+        }
+
+        /**
+         * @return The game termination marker: "1-0", "0-1", "1/2-1/2" or "*".
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * @return The FEN tag if the game starts from a set-up position, otherwise the start position.
+         */
+        public String getStartFen() {
+            String fen = tags.get("FEN");
+            return (fen != null) ? fen : Board.START_FEN;
+        }
+    }
+
+    private final BufferedReader in;
+    // A tag line already read that belongs to the next game.
+    private String pendingLine;
+    // Comment and variation state carries over line breaks.
+    private boolean inComment;
+    private int variationDepth;
+
+    /**
+     * Opens a PGN file for buffered reading through a file channel. PGN is read as UTF-8.
+     */
+    public PgnReader(Path path) throws IOException {
+        this(Channels.newReader(FileChannel.open(path, StandardOpenOption.READ), StandardCharsets.UTF_8));
+    }
+
+    public PgnReader(Reader reader) {
+        this.in = new BufferedReader(reader, READ_BUFFER_CHARS);
+    }
+
+    /**
+     * Reads the next game.
+     * @return The game, or null at the end of the input.
+     */
+    public Game next() throws IOException {
+        Game game = null;
+        boolean inMovetext = false;
+        inComment = false;
+        variationDepth = 0;
+
+        String line;
+        while ((line = nextLine()) != null) {
+            if (line.startsWith("%")) {
+                continue; // Escape line.
+            }
+            if (!inComment && variationDepth == 0 && line.startsWith("[")) {
+                if (inMovetext) {
+                    // No termination marker; this tag starts the next game.
+                    pendingLine = line;
+                    return game;
+                }
+                if (game == null) {
+                    game = new Game();
+                }
+                parseTag(line, game);
+                continue;
+            }
+            if (line.isBlank() && !inMovetext) {
+                continue;
+            }
+            if (game == null) {
+                game = new Game();
+            }
+            inMovetext = true;
+            if (parseMovetext(line, game)) {
+                return game;
+            }
+        }
+        return game;
+    }
+
+    private String nextLine() throws IOException {
+        if (pendingLine != null) {
+            String line = pendingLine;
+            pendingLine = null;
+            return line;
+        }
+        return in.readLine();
+    }
+
+    /**
+     * Parses a tag pair such as [White "Carlsen, Magnus"]. Malformed tag lines are ignored.
+     */
+    private static void parseTag(String line, Game game) {
+        int nameStart = 1;
+        int nameEnd = nameStart;
+        while (nameEnd < line.length() && !Character.isWhitespace(line.charAt(nameEnd)) && line.charAt(nameEnd) != '"') {
+            nameEnd++;
+        }
+        int quote = line.indexOf('"', nameEnd);
+        if (nameEnd == nameStart || quote < 0) {
+            return;
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = quote + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                value.append(line.charAt(++i));
+            } else if (c == '"') {
+                break;
+            } else {
+                value.append(c);
+            }
+        }
+        game.tags.put(line.substring(nameStart, nameEnd), value.toString());
+    }
+
+    /**
+     * Adds the SAN moves of one movetext line to the game.
+     * @return true if the line held the game termination marker.
+     */
+    private boolean parseMovetext(String line, Game game) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (inComment) {
+                if (c == '}') {
+                    inComment = false;
+                }
+                i++;
+            } else if (c == '{') {
+                inComment = true;
+                i++;
+            } else if (c == ';') {
+                return false; // Comment to the end of the line.
+            } else if (c == '(') {
+                variationDepth++;
+                i++;
+            } else if (c == ')') {
+                if (variationDepth > 0) {
+                    variationDepth--;
+                }
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int start = i;
+                while (i < length && !Character.isWhitespace(line.charAt(i)) && "{};()".indexOf(line.charAt(i)) < 0) {
+                    i++;
+                }
+                if (variationDepth == 0 && addToken(line.substring(start, i), game)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the token was the game termination marker.
+     */
+    private static boolean addToken(String token, Game game) {
+        switch (token) {
+            case "1-0":
+            case "0-1":
+            case "1/2-1/2":
+            case "*":
+                game.result = token;
+                return true;
+            case "e.p.":
+                return false;
+            default:
+                break;
+        }
+        if (token.charAt(0) == '$') {
+            return false; // Numeric annotation glyph.
+        }
+        String move = token;
+        if (Character.isDigit(move.charAt(0)) && !move.startsWith("0-0")) {
+            // Move number such as "12." or "12...", possibly glued to the move itself.
+            int i = 0;
+            while (i < move.length() && (Character.isDigit(move.charAt(i)) || move.charAt(i) == '.')) {
+                i++;
+            }
+            move = move.substring(i);
+        }
+        if (!move.isEmpty()) {
+            game.moves.add(move);
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.chess;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays PGN games through Board to check that every move is legal, optionally handing each
+ * position reached to a {@link PositionVisitor}. Whole archives are replayed in parallel: the
+ * calling thread reads games into a small bounded queue and worker threads replay them, each
+ * on one Board it reuses for every game, so memory stays flat however large the file is.
+ */
+public class PgnReplayer {
+
+    // Games read ahead per worker thread.
+    private static final int QUEUE_GAMES_PER_THREAD = 16;
+    // Marks the end of the input for the workers.
+    private static final PgnReader.Game END_OF_INPUT = new PgnReader.Game();
+
+    /**
+     * Receives every position reached while replaying. Called on the worker threads, with a
+     * Board that is reused afterwards; take a {@link Board#snapshot()} of anything that has to
+     * outlive the call.
+     */
+    public interface PositionVisitor {
+        PositionVisitor NONE = (game, board, ply) -> { };
+
+        /**
+         * @param ply Number of moves played so far in the game, 1 after the first move.
+         */
+        void visit(PgnReader.Game game, Board board, int ply);
+    }
+
+    /**
+     * How far one game replayed: all of it, or up to the first move that could not be played.
+     */
+    public static class ReplayResult {
+        public final int plies;
+        public final String error;
+
+        ReplayResult(int plies, String error) {
+            this.plies = plies;
+            this.error = error;
+        }
+
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Totals over a replayed archive.
+     */
+    public static class Summary {
+        public int validGames;
+        public int invalidGames;
+        public long totalPlies;
+        public long elapsedNanos;
+
+        public int games() {
+            return validGames + invalidGames;
+        }
+
+        public double gamesPerSecond() {
+            return elapsedNanos > 0 ? games() * 1_000_000_000.0 / elapsedNanos : 0.0;
+        }
+
+        void add(Summary other) {
+            validGames += other.validGames;
+            invalidGames += other.invalidGames;
+            totalPlies += other.totalPlies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games (%d valid, %d invalid), %d plies, %.1f games/s",
+                    games(), validGames, invalidGames, totalPlies, gamesPerSecond());
+        }
+    }
+
+    private final PositionVisitor visitor;
+
+    public PgnReplayer(PositionVisitor visitor) {
+        this.visitor = (visitor != null) ? visitor : PositionVisitor.NONE;
+    }
+
+    public PgnReplayer() {
+        this(PositionVisitor.NONE);
+    }
+
+    /**
+     * Replays one game on a fresh board.
+     */
+    public ReplayResult replay(PgnReader.Game game) {
+        return replay(game, new Board());
+    }
+
+    /**
+     * Replays one game on the given board, which is reset to the game's start position first.
+     */
+    ReplayResult replay(PgnReader.Game game, Board board) {
+        try {
+            board.loadFen(game.getStartFen());
+        } catch (IllegalArgumentException e) {
+            return new ReplayResult(0, e.getMessage());
+        }
+        List<String> moves = game.getMoves();
+        for (int ply = 0; ply < moves.size(); ply++) {
+            String san = moves.get(ply);
+            int move = board.parseMove(san);
+            if (move == Move.NONE) {
+                int moveNumber = ply / 2 + 1;
+                return new ReplayResult(ply, "Illegal move " + moveNumber + (ply % 2 == 0 ? ". " : "... ") + san);
+            }
+            board.makeMove(move);
+            visitor.visit(game, board, ply + 1);
+        }
+        return new ReplayResult(moves.size(), null);
+    }
+
+    /**
+     * Replays every game the reader returns on a pool of worker threads.
+     * @param reader Source of games; read on the calling thread.
+     * @param threads Number of worker threads.
+     */
+    public Summary replayAll(PgnReader reader, int threads) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<PgnReader.Game> queue = new ArrayBlockingQueue<>(threads * QUEUE_GAMES_PER_THREAD);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Summary>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(pool.submit(() -> replayQueued(queue)));
+        }
+
+        Summary summary = new Summary();
+        try {
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                queue.put(game);
+            }
+            for (int i = 0; i < threads; i++) {
+                queue.put(END_OF_INPUT);
+            }
+            for (Future<Summary> worker : workers) {
+                summary.add(worker.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("PGN replay interrupted.");
+        } catch (ExecutionException e) {
+            System.err.println("PGN replay worker failed: " + e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    private Summary replayQueued(BlockingQueue<PgnReader.Game> queue) throws InterruptedException {
+        Summary summary = new Summary();
+        Board board = new Board();
+        PgnReader.Game game;
+        while ((game = queue.take()) != END_OF_INPUT) {
+            ReplayResult result;
+            try {
+                result = replay(game, board);
+            } catch (RuntimeException e) {
+                // A broken game must not take the worker down with it.
+                result = new ReplayResult(0, e.toString());
+            }
+            summary.totalPlies += result.plies;
+            if (result.isValid()) {
+                summary.validGames++;
+            } else {
+                summary.invalidGames++;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Usage: PgnReplayer &lt;file.pgn&gt; [threads]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PgnReplayer <file.pgn> [threads]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try (PgnReader reader = new PgnReader(path)) {
+            System.out.println(new PgnReplayer().replayAll(reader, threads));
+        }
+    }
+}
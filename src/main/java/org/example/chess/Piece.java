@@ -1,6 +1,11 @@
 package org.example.chess;
 
-public class Piece {
+/**
+ * An immutable piece. Only twelve distinct pieces exist, so there is one shared instance of
+ * each (see {@link #of(PieceType, PieceColor)}) and boards never allocate pieces; the same
+ * instance may stand on any number of squares of any number of boards.
+ */
+public final class Piece {
 
     // Nested public static enums for PieceType and PieceColor
     public enum PieceType {
@@ -11,12 +16,46 @@ public class Piece {
         WHITE, BLACK
     }
 
-    private PieceType type;
-    private PieceColor color;
+    // Letter per index(): K Q R B N P for white, then lower case for black.
+    private static final String LETTERS = "KQRBNPkqrbnp";
 
-    public Piece(PieceType type, PieceColor color) {
+    // The shared instances, indexed by index().
+    private static final Piece[] PIECES = new Piece[12];
+    static {
+        for (PieceColor color : PieceColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                int index = color.ordinal() * 6 + type.ordinal();
+                PIECES[index] = new Piece(type, color, index);
+            }
+        }
+    }
+
+    private final PieceType type;
+    private final PieceColor color;
+    private final int index;
+    private final char letter;
+    private final String asciiChar;
+
+    private Piece(PieceType type, PieceColor color, int index) {
         this.type = type;
         this.color = color;
+        this.index = index;
+        this.letter = LETTERS.charAt(index);
+        this.asciiChar = String.valueOf(letter);
+    }
+
+    /**
+     * @return The shared instance of the given piece.
+     */
+    public static Piece of(PieceType type, PieceColor color) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * @param index A Board.bitboardIndex(), 0 to 11.
+     */
+    static Piece of(int index) {
+        return PIECES[index];
     }
 
     // Getters
@@ -28,16 +67,27 @@ public class Piece {
         return color;
     }
 
+    /**
+     * @return color * 6 + type, the same as Board.bitboardIndex(type, color).
+     */
+    int index() {
+        return index;
+    }
+
+    /**
+     * @return The FEN letter: upper case for White, lower case for Black.
+     */
+    public char getLetter() {
+        return letter;
+    }
+
     // Method to get the ASCII character for display
     public String getAsciiChar() {
-        switch (type) {
-            case KING:   return color == PieceColor.WHITE ? "K" : "k";
-            case QUEEN:  return color == PieceColor.WHITE ? "Q" : "q";
-            case ROOK:   return color == PieceColor.WHITE ? "R" : "r";
-            case BISHOP: return color == PieceColor.WHITE ? "B" : "b"; // Corrected BISHOP
-            case KNIGHT: return color == PieceColor.WHITE ? "N" : "n";
-            case PAWN:   return color == PieceColor.WHITE ? "P" : "p";
-            default:     return " "; // Should not happen for valid piece types
-        }
+        return asciiChar;
+    }
+
+    @Override
+    public String toString() {
+        return color + " " + type;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package org.example.chess;
+
+/**
+ * An immutable snapshot of a Board's position, packed into four longs and an int so that
+ * positions can be queued, cached and handed between threads without sharing a mutable Board.
+ * Take one with {@link Board#snapshot()} and turn it back into a board with {@link #toBoard()}
+ * or {@link Board#loadPosition(Position)}.
+ *
+ * <p>The pieces are stored as the occupancy bitboard plus one 4-bit piece index
+ * (Board.bitboardIndex()) per occupied square, from a1 upwards: the first 16 in
+ * {@code lowPieces}, the rest in {@code highPieces}. A legal position has at most 32 pieces.
+ * Two snapshots are equal when they hold the same position; the move counters are carried
+ * along but not compared, and the undo and repetition history is not part of a snapshot.
+ */
+public final class Position {
+
+    static final int MAX_PIECES = 32;
+
+    // Layout of the state int: the KQkq castling rights (Board.castlingRights()), then side to
+    // move, then the en passant square plus one (0 for none).
+    private static final int CASTLING_MASK = 0xF;
+    private static final int BLACK_TO_MOVE = 1 << 4;
+    private static final int EN_PASSANT_SHIFT = 5;
+
+    private final long occupied;
+    private final long lowPieces;
+    private final long highPieces;
+    private final int state;
+    private final long zobristKey;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+
+    Position(long occupied, long lowPieces, long highPieces, int state, long zobristKey,
+             int halfmoveClock, int fullmoveNumber) {
+        this.occupied = occupied;
+        this.lowPieces = lowPieces;
+        this.highPieces = highPieces;
+        this.state = state;
+        this.zobristKey = zobristKey;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    static int packState(Piece.PieceColor sideToMove, int castlingRights, int enPassantSquare) {
+        return castlingRights
+                | (sideToMove == Piece.PieceColor.BLACK ? BLACK_TO_MOVE : 0)
+                | ((enPassantSquare + 1) << EN_PASSANT_SHIFT);
+    }
+
+    long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @param n Position of the piece among the occupied squares, counting from a1.
+     * @return The piece's Board.bitboardIndex().
+     */
+    int pieceIndex(int n) {
+        long pieces = (n < 16) ? lowPieces : highPieces;
+        return (int) (pieces >>> (4 * (n & 15))) & 0xF;
+    }
+
+    int castlingRights() {
+        return state & CASTLING_MASK;
+    }
+
+    public Piece.PieceColor getSideToMove() {
+        return (state & BLACK_TO_MOVE) != 0 ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE;
+    }
+
+    /**
+     * @return The en passant target square (a1 = 0), or -1 if there is none.
+     */
+    public int getEnPassantSquare() {
+        return (state >>> EN_PASSANT_SHIFT) - 1;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return A new board holding this position, without history.
+     */
+    public Board toBoard() {
+        Board board = new Board();
+        board.loadPosition(this);
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Position)) return false;
+        Position other = (Position) o;
+        return zobristKey == other.zobristKey && occupied == other.occupied && lowPieces == other.lowPieces
+                && highPieces == other.highPieces && state == other.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey);
+    }
+
+    @Override
+    public String toString() {
+        return toBoard().toFen();
+    }
+}
@@ -0,0 +1,412 @@
+package org.example.chess;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alpha-beta search used by the AI players: iterative deepening negamax with a quiescence
+ * search over captures, bounded by a depth and/or a time budget. Works directly on the given
+ * Board through makeMove()/unmakeMove() and leaves it as it found it.
+ */
+public class Search {
+
+    public static final int MAX_DEPTH = 64;
+    // Scores at or beyond MATE_SCORE - MAX_PLY mean a forced mate; nearer mates score higher.
+    static final int MATE_SCORE = 100_000;
+    private static final int INFINITY = 1_000_000;
+    private static final int MAX_PLY = 128;
+    // Nodes between clock reads; must be a power of two.
+    private static final int TIME_CHECK_INTERVAL = 2048;
+
+    // Piece values indexed by PieceType ordinal, copied from Board's table once.
+    private static final int[] VALUES = new int[Piece.PieceType.values().length];
+    static {
+        for (Piece.PieceType type : Piece.PieceType.values()) {
+            VALUES[type.ordinal()] = Board.pieceValue(type);
+        }
+    }
+
+    private final Board board;
+    private final TranspositionTable table;
+    private final int[][] moveBuffers = new int[MAX_PLY][Move.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][Move.MAX_MOVES];
+
+    // Lazy SMP helper number, 0 for the main search (see LazySmpSearch).
+    private int helperId;
+    private volatile boolean stopRequested;
+    private long deadline;
+    private long nodeLimit = Long.MAX_VALUE;
+    // Node count shared by all threads of a Lazy SMP search, checked against nodeLimit; null when searching alone.
+    private AtomicLong sharedNodes;
+    private boolean timeUp;
+    private long nodes;
+    private int completedDepth;
+    private int bestScore;
+    private int rootBestMove;
+    private long elapsedNanos;
+
+    /**
+     * Creates a search with its own transposition table of {@link TranspositionTable#DEFAULT_SIZE_MB}.
+     */
+    public Search(Board board) {
+        this(board, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    /**
+     * @param table Transposition table to use; may be shared with searches on other threads.
+     */
+    public Search(Board board, TranspositionTable table) {
+        this.board = board;
+        this.table = table;
+    }
+
+    /**
+     * Searches the current position with iterative deepening until maxDepth has been completed
+     * or the time budget runs out. The first iteration always completes so a move is returned
+     * whenever one exists.
+     * @param maxDepth Deepest iteration to run, in plies (clamped to 1..MAX_DEPTH).
+     * @param timeLimitMillis Time budget in milliseconds, or 0 for no time limit.
+     * @return The best move found as an encoded {@link Move}, or Move.NONE if the side to move has no legal move.
+     */
+    public int findBestMove(int maxDepth, long timeLimitMillis) {
+        long start = System.nanoTime();
+        deadline = (timeLimitMillis > 0) ? start + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        timeUp = false;
+        nodes = 0;
+        completedDepth = 0;
+        bestScore = 0;
+
+        int bestMove = Move.NONE;
+        int depthLimit = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            // Helpers skip every other depth, offset by their number, so they do not all search
+            // the same iteration in lockstep.
+            if (helperId > 0 && depth > 1 && depth < depthLimit && ((depth + helperId) & 1) == 0) {
+                continue;
+            }
+            rootBestMove = Move.NONE;
+            int score = searchRoot(depth, bestMove);
+            if (timeUp) {
+                // The previous best move is searched first, so a move that beat it before the
+                // clock ran out is still an improvement.
+                if (rootBestMove != Move.NONE) {
+                    bestMove = rootBestMove;
+                }
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (bestMove == Move.NONE || isMateScore(score)) {
+                break; // No legal moves, or a forced mate was found.
+            }
+        }
+
+        elapsedNanos = System.nanoTime() - start;
+        stopRequested = false;
+        return bestMove;
+    }
+
+    /**
+     * Asks a running findBestMove() on another thread to return as soon as possible. The
+     * first iteration is still completed.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return true if the score is a forced mate for either side.
+     */
+    static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE_SCORE - MAX_PLY;
+    }
+
+    /**
+     * Limits later searches to about the given number of nodes, checked as often as the clock.
+     * @param nodeLimit Node budget, or 0 for no limit.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = (nodeLimit > 0) ? nodeLimit : Long.MAX_VALUE;
+    }
+
+    void setHelperId(int helperId) {
+        this.helperId = helperId;
+    }
+
+    /**
+     * Makes the node limit apply to the total of all searches given the same counter. Each
+     * search adds its nodes to it every TIME_CHECK_INTERVAL nodes.
+     */
+    void setSharedNodeCounter(AtomicLong sharedNodes) {
+        this.sharedNodes = sharedNodes;
+    }
+
+    /**
+     * @return Nodes visited by the last search, quiescence nodes included.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The deepest iteration the last search completed.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return Score of the last completed iteration from the side to move's view, in centipawns.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public long getNodesPerSecond() {
+        return Perft.nodesPerSecond(nodes, elapsedNanos);
+    }
+
+    private int searchRoot(int depth, int previousBestMove) {
+        int[] moves = moveBuffers[0];
+        int moveCount = board.generateLegalMoves(moves);
+        if (moveCount == 0) {
+            return isInCheck(board.getCurrentPlayerTurn()) ? -MATE_SCORE : 0;
+        }
+        scoreMoves(0, moveCount, previousBestMove);
+
+        int alpha = -INFINITY;
+        for (int i = 0; i < moveCount; i++) {
+            int move = pickMove(0, i, moveCount);
+            board.makeMove(move);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            board.unmakeMove();
+            if (timeUp) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                rootBestMove = move;
+            }
+        }
+
+        if (!timeUp) {
+            table.store(board.getZobristKey(), depth, TranspositionTable.EXACT, alpha, rootBestMove);
+        }
+        return alpha;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (countNodeAndCheckTime()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluate();
+        }
+        // One repetition is enough: whatever it was worth, the side to move can repeat it again.
+        if (board.isRepetition() || board.isFiftyMoveDraw() || board.isInsufficientMaterial()) {
+            return 0;
+        }
+
+        long key = board.getZobristKey();
+        long entry = table.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int hashScore = scoreFromTable(TranspositionTable.score(entry), ply);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.EXACT:
+                        return Math.max(alpha, Math.min(beta, hashScore));
+                    case TranspositionTable.LOWER_BOUND:
+                        if (hashScore >= beta) return beta;
+                        break;
+                    case TranspositionTable.UPPER_BOUND:
+                        if (hashScore <= alpha) return alpha;
+                        break;
+                }
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int moveCount = board.generateLegalMoves(moves);
+        if (moveCount == 0) {
+            // Prefer quicker mates and slower losses.
+            return isInCheck(board.getCurrentPlayerTurn()) ? -MATE_SCORE + ply : 0;
+        }
+        scoreMoves(ply, moveCount, hashMove);
+
+        int originalAlpha = alpha;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moveCount; i++) {
+            int move = pickMove(ply, i, moveCount);
+            board.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (timeUp) {
+                return 0;
+            }
+            if (score >= beta) {
+                table.store(key, depth, TranspositionTable.LOWER_BOUND, scoreToTable(beta, ply), move);
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+
+        if (alpha > originalAlpha) {
+            table.store(key, depth, TranspositionTable.EXACT, scoreToTable(alpha, ply), bestMove);
+        } else {
+            table.store(key, depth, TranspositionTable.UPPER_BOUND, scoreToTable(alpha, ply), hashMove);
+        }
+        return alpha;
+    }
+
+    /**
+     * Searches captures (and promotions) only until the position is quiet, so the static
+     * evaluation is never taken in the middle of an exchange.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        if (countNodeAndCheckTime()) {
+            return 0;
+        }
+        int standPat = evaluate();
+        if (standPat >= beta) {
+            return beta;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return alpha;
+        }
+
+        int[] moves = moveBuffers[ply];
+        int moveCount = board.generateLegalMoves(moves);
+        scoreMoves(ply, moveCount, Move.NONE);
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = pickMove(ply, i, moveCount);
+            if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                continue;
+            }
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (timeUp) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Static evaluation from the side to move's point of view (see Board.evaluate()).
+     */
+    int evaluate() {
+        return board.evaluate();
+    }
+
+    /**
+     * Gives each move an ordering score: the hinted move first, then captures by most valuable
+     * victim / least valuable attacker, then promotions, then quiet moves.
+     */
+    private void scoreMoves(int ply, int moveCount, int hintMove) {
+        int[] moves = moveBuffers[ply];
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            int score = 0;
+            if (move == hintMove) {
+                score = INFINITY;
+            } else {
+                if (Move.isCapture(move)) {
+                    Piece victim = board.pieceOn(Move.to(move));
+                    // En passant leaves the target square empty; the victim is a pawn.
+                    int victimValue = (victim != null) ? VALUES[victim.getType().ordinal()] : VALUES[Piece.PieceType.PAWN.ordinal()];
+                    score += 10_000 + victimValue * 100 - VALUES[board.pieceOn(Move.from(move)).getType().ordinal()];
+                }
+                if (Move.isPromotion(move)) {
+                    score += 1_000 + VALUES[Move.promotionType(move).ordinal()];
+                }
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Selection sort step: swaps the best scored move of moves[index..count) into index and returns it.
+     */
+    private int pickMove(int ply, int index, int moveCount) {
+        int[] moves = moveBuffers[ply];
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moveCount; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    /**
+     * Counts a node and, every TIME_CHECK_INTERVAL nodes, reads the clock, the node limit and
+     * the stop flag.
+     * @return true if the search has run out of time and should unwind.
+     */
+    private boolean countNodeAndCheckTime() {
+        nodes++;
+        if ((nodes & (TIME_CHECK_INTERVAL - 1)) == 0) {
+            long searched = (sharedNodes != null) ? sharedNodes.addAndGet(TIME_CHECK_INTERVAL) : nodes;
+            // Never abort the first iteration, so there is always a complete result to fall back on.
+            if (completedDepth > 0 && (stopRequested || searched >= nodeLimit || System.nanoTime() >= deadline)) {
+                timeUp = true;
+            }
+        }
+        return timeUp;
+    }
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, so an entry stays
+     * correct when the same position is reached at a different ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) return score + ply;
+        if (score <= -MATE_SCORE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) return score - ply;
+        if (score <= -MATE_SCORE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    private boolean isInCheck(Piece.PieceColor color) {
+        return board.isSquareAttacked(board.kingSquare(color), opponent(color));
+    }
+
+    private static Piece.PieceColor opponent(Piece.PieceColor color) {
+        return (color == Piece.PieceColor.WHITE) ? Piece.PieceColor.BLACK : Piece.PieceColor.WHITE;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch self-play: plays many engine-vs-engine games in parallel, each on its own
+ * Board with no console output, and reports results, average game length and throughput.
+ * Every game opens with a few seeded random plies so the games differ from each other.
+ */
+public class SelfPlay {
+
+    public static final int DEFAULT_SEARCH_DEPTH = 3;
+    public static final int DEFAULT_RANDOM_OPENING_PLIES = 4;
+    // Safety net only: repetition, the fifty-move rule and dead positions end games long before.
+    public static final int DEFAULT_MAX_PLIES = 1000;
+    private static final int TABLE_SIZE_MB = 1;
+
+    public enum Outcome {
+        WHITE_WINS, BLACK_WINS, DRAW
+    }
+
+    /**
+     * The outcome and length of one game.
+     */
+    public static class GameResult {
+        public final Outcome outcome;
+        public final int plies;
+
+        GameResult(Outcome outcome, int plies) {
+            this.outcome = outcome;
+            this.plies = plies;
+        }
+    }
+
+    /**
+     * Totals over a batch of games.
+     */
+    public static class Summary {
+        public int whiteWins;
+        public int blackWins;
+        public int draws;
+        // Games that threw instead of finishing; not included in games().
+        public int failedGames;
+        public long totalPlies;
+        public long elapsedNanos;
+
+        public int games() {
+            return whiteWins + blackWins + draws;
+        }
+
+        public double averagePlies() {
+            return games() > 0 ? (double) totalPlies / games() : 0.0;
+        }
+
+        public double gamesPerSecond() {
+            return elapsedNanos > 0 ? games() * 1_000_000_000.0 / elapsedNanos : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            String totals = String.format("%d games: +%d =%d -%d (white's view), %.1f plies on average, %.1f games/s",
+                    games(), whiteWins, draws, blackWins, averagePlies(), gamesPerSecond());
+            return (failedGames > 0) ? totals + ", " + failedGames + " failed" : totals;
+        }
+    }
+
+    private final int searchDepth;
+    private final int randomOpeningPlies;
+    private final int maxPlies;
+
+    public SelfPlay(int searchDepth, int randomOpeningPlies, int maxPlies) {
+        this.searchDepth = searchDepth;
+        this.randomOpeningPlies = randomOpeningPlies;
+        this.maxPlies = maxPlies;
+    }
+
+    public SelfPlay() {
+        this(DEFAULT_SEARCH_DEPTH, DEFAULT_RANDOM_OPENING_PLIES, DEFAULT_MAX_PLIES);
+    }
+
+    /**
+     * Plays one game from the start position. Both sides search to the configured depth.
+     * @param seed Seed for the random opening plies; the same seed replays the same game.
+     */
+    public GameResult playGame(long seed) {
+        Board board = new Board();
+        Search search = new Search(board, new TranspositionTable(TABLE_SIZE_MB));
+        Random random = new Random(seed);
+        int[] moves = new int[Move.MAX_MOVES];
+
+        for (int ply = 0; ply < maxPlies; ply++) {
+            int moveCount = board.generateLegalMoves(moves);
+            if (moveCount == 0) {
+                Piece.PieceColor mover = board.getCurrentPlayerTurn();
+                if (!board.isKingInCheck(mover)) {
+                    return new GameResult(Outcome.DRAW, ply);
+                }
+                return new GameResult(mover == Piece.PieceColor.WHITE ? Outcome.BLACK_WINS : Outcome.WHITE_WINS, ply);
+            }
+            if (board.getDrawReason() != null) {
+                return new GameResult(Outcome.DRAW, ply);
+            }
+            int move = (ply < randomOpeningPlies)
+                    ? moves[random.nextInt(moveCount)]
+                    : search.findBestMove(searchDepth, 0);
+            board.makeMove(move);
+        }
+        return new GameResult(Outcome.DRAW, maxPlies);
+    }
+
+    /**
+     * Plays the given number of games on a pool of threads.
+     * @param games Number of games; game i uses seed baseSeed + i.
+     * @param threads Number of worker threads.
+     * @param baseSeed Seed of the first game.
+     */
+    public Summary run(int games, int threads, long baseSeed) {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<GameResult>> futures = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            long seed = baseSeed + i;
+            futures.add(pool.submit(() -> playGame(seed)));
+        }
+
+        Summary summary = new Summary();
+        try {
+            for (int i = 0; i < games; i++) {
+                GameResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    // One broken game should not cost the results of the others.
+                    summary.failedGames++;
+                    System.err.println("Self-play game with seed " + (baseSeed + i) + " failed: " + e.getCause());
+                    continue;
+                }
+                summary.totalPlies += result.plies;
+                switch (result.outcome) {
+                    case WHITE_WINS: summary.whiteWins++; break;
+                    case BLACK_WINS: summary.blackWins++; break;
+                    default:         summary.draws++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Self-play interrupted.");
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Usage: SelfPlay [games] [threads] [searchDepth] [seed]
+     */
+    public static void main(String[] args) {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_SEARCH_DEPTH;
+        long seed = (args.length > 3) ? Long.parseLong(args[3]) : 1L;
+
+        SelfPlay selfPlay = new SelfPlay(depth, DEFAULT_RANDOM_OPENING_PLIES, DEFAULT_MAX_PLIES);
+        System.out.println(selfPlay.run(games, threads, seed));
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table keyed by Zobrist key, packed into a single preallocated long[].
+ * Every entry is two longs: the key XORed with the data, then the data itself (depth, bound,
+ * score and best move). A probe only accepts an entry whose two words XOR back to the probed
+ * key, so a torn or half-overwritten entry written by another thread reads as a miss. That
+ * makes the table safe to share between search threads without locks.
+ */
+public class TranspositionTable {
+
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    // Bound types. 0 is reserved so that an empty data word never looks like an entry.
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    // Data word layout: bits 0-15 move, 16-47 score, 48-55 depth, 56-57 bound.
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int MAX_ENTRIES = 1 << 29;
+
+    private final long[] table;
+    private final int mask;
+
+    /**
+     * @param sizeMb Memory budget in megabytes; the entry count is rounded down to a power of two.
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Transposition table size must be positive: " + sizeMb);
+        }
+        long requested = Math.min((long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY, MAX_ENTRIES);
+        int entries = Integer.highestOneBit((int) requested);
+        table = new long[entries * 2];
+        mask = entries - 1;
+    }
+
+    /**
+     * @return The entry's data word for the key, or 0 if the table holds no entry for it.
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = table[index + 1];
+        long check = table[index];
+        return ((check ^ data) == key) ? data : 0L;
+    }
+
+    /**
+     * Stores a search result. An existing entry for the same position is kept only if it was
+     * searched deeper and the new result is not exact; entries for other positions are replaced.
+     * @param key Zobrist key of the position.
+     * @param depth Remaining depth the score was searched to.
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND.
+     * @param score The score, already adjusted so that mate scores are relative to this position.
+     * @param move Best (or refuting) move as an encoded {@link Move}, or Move.NONE.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = index(key);
+        long oldData = table[index + 1];
+        if (bound != EXACT && (table[index] ^ oldData) == key && depth(oldData) > depth) {
+            return;
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFFFFFL) << SCORE_SHIFT)
+                | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * @return The number of entries the table can hold.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Samples the first thousand slots (or all of them in a smaller table).
+     * @return How full the table is, in permille.
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (table[i * 2 + 1] != 0) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (int) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 3);
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+}
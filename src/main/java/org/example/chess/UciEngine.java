@@ -0,0 +1,335 @@
+package org.example.chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * UCI (Universal Chess Interface) front-end, so the engine can be driven by chess GUIs and
+ * match runners. Commands are read on the calling thread and searches run on a worker thread,
+ * which keeps "isready", "stop" and "quit" responsive while the engine is thinking.
+ *
+ * <p>Supported: uci, debug, isready, setoption (Hash, Threads), ucinewgame,
+ * position startpos|fen ... [moves ...], go [wtime btime winc binc movestogo depth nodes
+ * movetime infinite], stop, ponderhit and quit.
+ */
+public class UciEngine {
+
+    public static final String ENGINE_NAME = "ChessBoard";
+    // Moves the remaining clock time is spread over when the GUI does not say.
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // Kept back from every move's budget for process and GUI latency.
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Board board = new Board();
+    private int hashMb = TranspositionTable.DEFAULT_SIZE_MB;
+    private int threads = 1;
+    private TranspositionTable table = new TranspositionTable(hashMb);
+    private LazySmpSearch search = new LazySmpSearch(threads, table);
+
+    // The search in progress, if any, and the signal that releases an infinite search's result.
+    private Future<?> running;
+    private CountDownLatch stopSignal = new CountDownLatch(0);
+
+    public UciEngine(Reader in, Writer out) {
+        this.in = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in);
+        this.out = new PrintWriter(out, true);
+    }
+
+    /**
+     * Reads and executes commands until "quit" or the end of the input.
+     */
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handle(line)) {
+                    break;
+                }
+            }
+        } finally {
+            stopSearch();
+            search.shutdown();
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes one command.
+     * @return false once "quit" has been received.
+     */
+    boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + ENGINE_NAME);
+                send("id author " + ENGINE_NAME + " contributors");
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                stopSearch();
+                table.clear();
+                board.loadFen(Board.START_FEN);
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            case "debug":
+            case "ponderhit":
+            case "":
+                break;
+            default:
+                send("info string Unknown command: " + line.trim());
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        // setoption name <id> [value <x>]; only single-word option names are supported.
+        String name = null;
+        String value = null;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equals("name")) {
+                name = tokens[i + 1];
+            } else if (tokens[i].equals("value")) {
+                value = tokens[i + 1];
+            }
+        }
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            switch (name.toLowerCase()) {
+                case "hash":
+                    hashMb = clamp(Integer.parseInt(value), 1, MAX_HASH_MB);
+                    table = new TranspositionTable(hashMb);
+                    break;
+                case "threads":
+                    threads = clamp(Integer.parseInt(value), 1, MAX_THREADS);
+                    break;
+                default:
+                    send("info string Unknown option: " + name);
+                    return;
+            }
+        } catch (NumberFormatException e) {
+            send("info string Invalid value for " + name + ": " + value);
+            return;
+        }
+        search.shutdown();
+        search = new LazySmpSearch(threads, table);
+    }
+
+    private void setPosition(String[] tokens) {
+        int i = 1;
+        String fen;
+        if (i < tokens.length && tokens[i].equals("startpos")) {
+            fen = Board.START_FEN;
+            i++;
+        } else if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder sb = new StringBuilder();
+            for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(tokens[i]);
+            }
+            fen = sb.toString();
+        } else {
+            send("info string Expected 'position startpos' or 'position fen <fen>'");
+            return;
+        }
+
+        try {
+            board.loadFen(fen);
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+            board.loadFen(Board.START_FEN);
+            return;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = board.parseMove(tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string Illegal move " + tokens[i] + "; position ends before it");
+                    return;
+                }
+                board.makeMove(move);
+            }
+        }
+    }
+
+    private void go(String[] tokens) {
+        long whiteTime = 0, blackTime = 0, whiteIncrement = 0, blackIncrement = 0, moveTime = 0, nodes = 0;
+        int movesToGo = 0;
+        int depth = Search.MAX_DEPTH;
+        boolean infinite = false;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                String value = (i + 1 < tokens.length) ? tokens[i + 1] : "0";
+                switch (tokens[i]) {
+                    case "wtime":     whiteTime = Long.parseLong(value); i++; break;
+                    case "btime":     blackTime = Long.parseLong(value); i++; break;
+                    case "winc":      whiteIncrement = Long.parseLong(value); i++; break;
+                    case "binc":      blackIncrement = Long.parseLong(value); i++; break;
+                    case "movestogo": movesToGo = Integer.parseInt(value); i++; break;
+                    case "depth":     depth = Integer.parseInt(value); i++; break;
+                    case "nodes":     nodes = Long.parseLong(value); i++; break;
+                    case "movetime":  moveTime = Long.parseLong(value); i++; break;
+                    case "infinite":  infinite = true; break;
+                    default: break; // ponder, searchmoves and mate are not supported.
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string Invalid go parameter: " + e.getMessage());
+        }
+
+        boolean white = (board.getCurrentPlayerTurn() == Piece.PieceColor.WHITE);
+        long timeLimit = infinite ? 0 : timeBudget(white ? whiteTime : blackTime,
+                white ? whiteIncrement : blackIncrement, movesToGo, moveTime);
+        int maxDepth = infinite ? Search.MAX_DEPTH : depth;
+        long nodeLimit = infinite ? 0 : nodes;
+        boolean waitForStop = infinite;
+
+        // The caller has stopped any earlier search, so the worker has the board to itself.
+        CountDownLatch signal = new CountDownLatch(1);
+        stopSignal = signal;
+        LazySmpSearch currentSearch = search;
+        currentSearch.setNodeLimit(nodeLimit);
+        running = worker.submit(() -> {
+            int bestMove = currentSearch.findBestMove(board, maxDepth, timeLimit);
+            sendSearchInfo(currentSearch);
+            if (waitForStop) {
+                // An infinite search only reports its move once the GUI says stop.
+                awaitUninterruptibly(signal);
+            }
+            send("bestmove " + (bestMove != Move.NONE ? Move.toUci(bestMove) : "0000"));
+        });
+    }
+
+    /**
+     * @return Milliseconds to spend on this move, or 0 for no time limit.
+     */
+    static long timeBudget(long remaining, long increment, int movesToGo, long moveTime) {
+        if (moveTime > 0) {
+            return moveTime;
+        }
+        if (remaining <= 0) {
+            return 0;
+        }
+        long budget = remaining / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+        return Math.max(1, Math.min(budget, remaining - MOVE_OVERHEAD_MILLIS));
+    }
+
+    private void sendSearchInfo(LazySmpSearch finished) {
+        send("info depth " + finished.getCompletedDepth() + " score " + formatScore(finished.getBestScore())
+                + " nodes " + finished.getNodes() + " nps " + finished.getNodesPerSecond()
+                + " time " + finished.getElapsedMillis());
+    }
+
+    /**
+     * Converts a search score to UCI: "cp" in centipawns or "mate" in moves, negative when the
+     * engine is getting mated.
+     */
+    static String formatScore(int score) {
+        if (Search.isMateScore(score)) {
+            int plies = Search.MATE_SCORE - Math.abs(score);
+            int moves = (plies + 1) / 2;
+            return "mate " + (score > 0 ? moves : -moves);
+        }
+        return "cp " + score;
+    }
+
+    /**
+     * Stops the running search, if any, and waits for it to report its move.
+     */
+    private void stopSearch() {
+        stopSignal.countDown();
+        if (running == null) {
+            return;
+        }
+        // stop() is ignored until the search has actually started, so repeat it until the
+        // worker is done.
+        while (!running.isDone()) {
+            search.stop();
+            try {
+                running.get(10, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Still running; stop again.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                send("info string Search failed: " + e.getCause());
+            }
+        }
+        running = null;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private void send(String message) {
+        synchronized (out) {
+            out.println(message);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(new InputStreamReader(System.in, StandardCharsets.UTF_8), new OutputStreamWriter(System.out, StandardCharsets.UTF_8)).run();
+    }
+}
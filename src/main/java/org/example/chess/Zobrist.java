@@ -0,0 +1,49 @@
+package org.example.chess;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing, shared by every Board. A position's key is the XOR of the
+ * keys of everything present in it, so a move only needs to XOR out what it removes and XOR in
+ * what it adds.
+ */
+final class Zobrist {
+
+    // PIECE_SQUARE[Board.bitboardIndex(type, color)][square]
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    // XORed in while Black is to move.
+    static final long SIDE_TO_MOVE;
+    // CASTLING[Board.castlingRights()]: XOR of one key per KQkq right still held.
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        // Fixed seed so keys, and anything stored under them, are stable between runs.
+        Random random = new Random(0x5EEDC0FFEEL);
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = random.nextLong();
+            }
+        }
+        SIDE_TO_MOVE = random.nextLong();
+
+        long[] rightKeys = new long[4];
+        for (int right = 0; right < 4; right++) {
+            rightKeys[right] = random.nextLong();
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            for (int right = 0; right < 4; right++) {
+                if ((rights & (1 << right)) != 0) {
+                    CASTLING[rights] ^= rightKeys[right];
+                }
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttacksTest {
+
+    // Square-by-square reference walk to check the magic lookups against.
+    private static long walk(int square, long occupied, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int rank = (square >>> 3) + step[0];
+            int file = (square & 7) + step[1];
+            while (rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                rank += step[0];
+                file += step[1];
+            }
+        }
+        return attacks;
+    }
+
+    @Test
+    void testMagicSliderAttacksMatchRayWalk() {
+        int[][] rookSteps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        int[][] bishopSteps = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        Random random = new Random(12345);
+
+        for (int i = 0; i < 20000; i++) {
+            int square = random.nextInt(64);
+            // Sparse and dense boards alike.
+            long occupied = (i % 2 == 0) ? random.nextLong() & random.nextLong() : random.nextLong();
+
+            assertEquals(walk(square, occupied, rookSteps), Attacks.rookAttacks(square, occupied), "rook on " + square);
+            assertEquals(walk(square, occupied, bishopSteps), Attacks.bishopAttacks(square, occupied), "bishop on " + square);
+        }
+    }
+
+    @Test
+    void testShippedMagicsAreCollisionFree() {
+        for (int square = 0; square < 64; square++) {
+            assertTrue(Attacks.isValidMagic(square, false), "rook magic for " + square);
+            assertTrue(Attacks.isValidMagic(square, true), "bishop magic for " + square);
+        }
+    }
+
+    @Test
+    void testMagicSearchFindsValidMagics() {
+        // A corner, an edge and a centre square of each kind, to keep the search short.
+        for (int square : new int[] {0, 12, 27}) {
+            assertNotEquals(0L, Attacks.findMagic(square, false));
+            assertNotEquals(0L, Attacks.findMagic(square, true));
+        }
+    }
+
+    @Test
+    void testBetweenAndLine() {
+        // a1 (0) and h8 (63) share the long diagonal
+        assertEquals(6, Long.bitCount(Attacks.BETWEEN[0][63]));
+        assertEquals(0x8040201008040201L, Attacks.LINE[0][63]);
+        // a1 and b3 are not aligned
+        assertEquals(0L, Attacks.BETWEEN[0][17]);
+        assertEquals(0L, Attacks.LINE[0][17]);
+    }
+}
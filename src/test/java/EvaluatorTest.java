@@ -0,0 +1,54 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTest {
+
+    @Test
+    void testStartPositionIsBalanced() {
+        // Arrange
+        Board board = new Board();
+
+        // Act & Assert
+        assertEquals(0, board.evaluate());
+        board.move("e2e4");
+        assertTrue(board.evaluate() < 0, "After 1. e4 Black, to move, should be slightly worse.");
+    }
+
+    @Test
+    void testIncrementalEvaluationMatchesFreshBoard() {
+        // Arrange: Kiwipete has captures, castling, promotions and en passant within reach
+        Board board = Perft.STANDARD_POSITIONS[1].createBoard();
+        int initial = board.evaluate();
+        int[] moves = new int[Move.MAX_MOVES];
+        java.util.Random random = new java.util.Random(7);
+
+        // Act & Assert
+        int played = 0;
+        for (; played < 60; played++) {
+            int count = board.generateLegalMoves(moves);
+            if (count == 0) {
+                break;
+            }
+            board.makeMove(moves[random.nextInt(count)]);
+            assertEquals(Board.fromFen(board.toFen()).evaluate(), board.evaluate(), "after " + board.toFen());
+        }
+        for (int i = 0; i < played; i++) {
+            board.unmakeMove();
+        }
+        assertEquals(initial, board.evaluate());
+    }
+
+    @Test
+    void testEndgameRewardsAdvancedPawnsAndActiveKing() {
+        // Arrange: kings and pawns only, so the endgame tables decide
+        Board advanced = Board.fromFen("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+        Board home = Board.fromFen("4k3/8/8/8/8/8/P7/4K3 w - - 0 1");
+        Board centralKing = Board.fromFen("8/8/8/4k3/8/8/P7/4K3 w - - 0 1");
+
+        // Act & Assert
+        assertTrue(advanced.evaluate() > home.evaluate(), "A pawn on the 7th is worth more in the endgame.");
+        assertTrue(centralKing.evaluate() < home.evaluate(), "A central enemy king is worth more in the endgame.");
+    }
+}
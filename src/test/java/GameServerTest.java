@@ -0,0 +1,129 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameServerTest {
+    private GameServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new GameServer(0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    /** Minimal loopback client: one request line, one response line. */
+    private static class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        Client(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        String send(String command) throws IOException {
+            out.println(command);
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Test
+    void testPlaysFoolsMateOverLoopback() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("OK WHITE", client.send("new"));
+            assertEquals("OK BLACK", client.send("move f2f3"));
+            assertEquals("OK WHITE", client.send("move e7e5"));
+            assertEquals("OK BLACK", client.send("move g2g4"));
+            assertEquals("OK CHECKMATE BLACK", client.send("move d8h4"));
+            assertEquals("BYE", client.send("quit"));
+        }
+    }
+
+    @Test
+    void testRejectedMoveExplainsAndKeepsTurn() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            String response = client.send("move e2e5");
+
+            assertTrue(response.startsWith("ERR "), response);
+            assertEquals("OK WHITE", client.send("turn"));
+            assertEquals(20, client.send("moves").split(" ").length - 1, "OK plus 20 legal moves.");
+        }
+    }
+
+    @Test
+    void testSessionsAreIndependent() throws IOException {
+        try (Client first = new Client(server.getPort()); Client second = new Client(server.getPort())) {
+            // Act
+            first.send("move e2e4");
+
+            // Assert: the second game still has its e-pawn at home
+            String secondBoard = second.send("board");
+            assertEquals("OK BLACK", first.send("turn"));
+            assertEquals('P', secondBoard.charAt(3 + 6 * 8 + 4));
+            assertEquals('.', first.send("board").charAt(3 + 6 * 8 + 4));
+        }
+    }
+
+    @Test
+    void testMovesAreRefusedWhilePromotionIsPending() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            String[] moves = {"h2h4", "g7g5", "h4g5", "h7h6", "g5h6", "a7a6", "h6h7", "a6a5"};
+            for (String move : moves) {
+                assertTrue(client.send("move " + move).startsWith("OK"), move);
+            }
+
+            assertEquals("PROMOTE", client.send("move h7g8"));
+            assertEquals("ERR Promotion pending; send 'promote Q|R|B|N'.", client.send("moves"));
+            assertEquals("OK BLACK", client.send("promote Q"));
+            assertTrue(client.send("moves").startsWith("OK "));
+        }
+    }
+
+    @Test
+    void testOverlongLineClosesSession() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("OK WHITE", client.send("turn"));
+
+            assertEquals("ERR Line too long.", client.send("x".repeat(GameServer.MAX_LINE_LENGTH + 1)));
+            assertNull(client.in.readLine(), "The server closes the connection.");
+        }
+    }
+
+    @Test
+    void testPromotionHandshake() throws IOException {
+        GameServer.GameSession session = new GameServer.GameSession();
+        // Walk the h-pawn to h7, then take the knight on g8.
+        String[] moves = {"h2h4", "g7g5", "h4g5", "h7h6", "g5h6", "a7a6", "h6h7", "a6a5"};
+        for (String move : moves) {
+            assertTrue(session.handle("move " + move).startsWith("OK"), move);
+        }
+
+        assertEquals("PROMOTE", session.handle("move h7g8"));
+        assertTrue(session.handle("move a2a3").startsWith("ERR"));
+        assertEquals("OK BLACK", session.handle("promote N"));
+        assertEquals('N', session.handle("board").charAt(3 + 6));
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTest {
+
+    @Test
+    void testStandardPositionsMatchPublishedCounts() {
+        // Depth 3 keeps the suite fast while still exercising castling, en passant and promotions.
+        for (Perft.TestPosition position : Perft.STANDARD_POSITIONS) {
+            Board board = position.createBoard();
+            for (int depth = 1; depth <= 3; depth++) {
+                assertEquals(position.expectedNodes[depth - 1], board.perft(depth),
+                        position.name + " perft(" + depth + ") should match the published node count.");
+            }
+        }
+    }
+
+    @Test
+    void testDivideSumsToPerft() {
+        Board board = Perft.STANDARD_POSITIONS[1].createBoard(); // Kiwipete
+
+        long total = 0;
+        for (long nodes : board.divide(3).values()) {
+            total += nodes;
+        }
+
+        assertEquals(48, board.divide(1).size(), "Kiwipete has 48 legal moves.");
+        assertEquals(board.perft(3), total, "divide(3) should sum to perft(3).");
+    }
+
+    @Test
+    void testPerftLeavesBoardUnchanged() {
+        // Arrange
+        Board board = new Board();
+
+        // Act
+        board.perft(3);
+
+        // Assert: the undo stack must restore the start position exactly
+        assertEquals(Piece.PieceColor.WHITE, board.getCurrentPlayerTurn());
+        assertEquals(Piece.PieceType.KING, board.getPiece(7, 4).getType());
+        assertEquals(Board.MoveResult.VALID, board.move("e2e4"));
+    }
+}
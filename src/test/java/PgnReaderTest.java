@@ -0,0 +1,89 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnReaderTest {
+
+    private static final String ARCHIVE =
+            "[Event \"Casual \\\"blitz\\\"\"]\n" +
+            "[White \"Alice\"]\n" +
+            "[Black \"Bob\"]\n" +
+            "[Result \"1-0\"]\n" +
+            "\n" +
+            "1. e4 e5 2. Nf3 {develops, attacks e5} Nc6 3. Bc4 (3. Bb5 a6 {Ruy Lopez}) 3... Nf6?!\n" +
+            "4. Ng5 d5 5. exd5 Nxd5 $6 6. Nxf7 Kxf7 7. Qf3+ Ke6 8. Nc3 ; the Fried Liver\n" +
+            "Ncb4 9. O-O c6 10. d4 1-0\n" +
+            "\n" +
+            "[Event \"Promotion\"]\n" +
+            "[SetUp \"1\"]\n" +
+            "[FEN \"3r3k/4P3/8/8/8/8/8/4K3 w - - 0 1\"]\n" +
+            "\n" +
+            "1. exd8=Q# 1-0\n" +
+            "\n" +
+            "[Event \"Broken\"]\n" +
+            "\n" +
+            "1. e4 e5 2. Ke3 *\n";
+
+    @Test
+    void testReadsTagsAndMainLine() throws IOException {
+        // Arrange
+        PgnReader reader = new PgnReader(new StringReader(ARCHIVE));
+
+        // Act
+        PgnReader.Game first = reader.next();
+        PgnReader.Game second = reader.next();
+        PgnReader.Game third = reader.next();
+
+        // Assert
+        assertEquals("Casual \"blitz\"", first.getTag("Event"));
+        assertEquals("1-0", first.getResult());
+        assertEquals(Arrays.asList("e4", "e5", "Nf3", "Nc6", "Bc4", "Nf6?!", "Ng5", "d5", "exd5", "Nxd5",
+                "Nxf7", "Kxf7", "Qf3+", "Ke6", "Nc3", "Ncb4", "O-O", "c6", "d4"), first.getMoves(),
+                "Comments, variations, NAGs and move numbers should be skipped.");
+        assertEquals("3r3k/4P3/8/8/8/8/8/4K3 w - - 0 1", second.getStartFen());
+        assertEquals("*", third.getResult());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testReplayValidatesMoves() throws IOException {
+        // Arrange
+        PgnReader reader = new PgnReader(new StringReader(ARCHIVE));
+        PgnReplayer replayer = new PgnReplayer();
+
+        // Act
+        PgnReplayer.ReplayResult first = replayer.replay(reader.next());
+        PgnReplayer.ReplayResult second = replayer.replay(reader.next());
+        PgnReplayer.ReplayResult third = replayer.replay(reader.next());
+
+        // Assert
+        assertTrue(first.isValid(), String.valueOf(first.error));
+        assertEquals(19, first.plies);
+        assertTrue(second.isValid(), "exd8=Q# should promote: " + second.error);
+        assertFalse(third.isValid());
+        assertEquals(2, third.plies);
+        assertEquals("Illegal move 2. Ke3", third.error);
+    }
+
+    @Test
+    void testReplayAllVisitsEveryPosition() throws IOException {
+        // Arrange
+        AtomicInteger positions = new AtomicInteger();
+        PgnReplayer replayer = new PgnReplayer((game, board, ply) -> positions.incrementAndGet());
+
+        // Act
+        PgnReplayer.Summary summary = replayer.replayAll(new PgnReader(new StringReader(ARCHIVE)), 2);
+
+        // Assert
+        assertEquals(3, summary.games());
+        assertEquals(2, summary.validGames);
+        assertEquals(1, summary.invalidGames);
+        assertEquals(19 + 1 + 2, summary.totalPlies);
+        assertEquals(19 + 1 + 2, positions.get());
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+    private Board board;
+    private Search search;
+
+    @BeforeEach
+    void setUp() {
+        board = new Board();
+        board.clearBoard();
+        board.resetCastlingFlags();
+        search = new Search(board);
+    }
+
+    private void setCustomBoard(Piece.PieceColor sideToMove, String... placements) {
+        for (String p : placements) {
+            board.placePiece(p);
+        }
+        board.setPlayerTurn(sideToMove);
+    }
+
+    @Test
+    void testFindsMateInOne() {
+        // Arrange: back rank mate with Ra8#
+        setCustomBoard(Piece.PieceColor.WHITE, "Kg1", "Ra1", "kg8", "pf7", "pg7", "ph7");
+
+        // Act
+        int move = search.findBestMove(3, 0);
+
+        // Assert
+        assertEquals("a1a8", Move.toUci(move));
+        assertTrue(search.getBestScore() >= Search.MATE_SCORE - 10, "A forced mate should get a mate score.");
+    }
+
+    @Test
+    void testWinsHangingQueen() {
+        // Arrange
+        setCustomBoard(Piece.PieceColor.BLACK, "Ke1", "Qd4", "ke8", "nc6");
+
+        // Act
+        int move = search.findBestMove(4, 0);
+
+        // Assert
+        assertEquals("c6d4", Move.toUci(move));
+    }
+
+    @Test
+    void testQuiescenceAvoidsDefendedPawn() {
+        // Arrange: Qxd5 wins a pawn but loses the queen to exd5
+        setCustomBoard(Piece.PieceColor.WHITE, "Kg1", "Qd1", "kg8", "pd5", "pe6");
+
+        // Act
+        int move = search.findBestMove(1, 0);
+
+        // Assert
+        assertNotEquals("d1d5", Move.toUci(move));
+    }
+
+    @Test
+    void testNoMoveWhenMated() {
+        // Arrange: black is already checkmated
+        setCustomBoard(Piece.PieceColor.BLACK, "Kg1", "Ra8", "kg8", "pf7", "pg7", "ph7");
+
+        // Act & Assert
+        assertEquals(Move.NONE, search.findBestMove(3, 0));
+    }
+
+    @Test
+    void testTimeLimitedSearchLeavesBoardUnchanged() {
+        // Arrange
+        Board start = new Board();
+        Search startSearch = new Search(start);
+        long key = start.getZobristKey();
+
+        // Act
+        int move = startSearch.findBestMove(Search.MAX_DEPTH, 200);
+
+        // Assert
+        assertNotEquals(Move.NONE, move);
+        assertTrue(startSearch.getCompletedDepth() >= 1);
+        assertEquals(key, start.getZobristKey(), "Search must undo every move it makes.");
+        assertEquals(Piece.PieceColor.WHITE, start.getCurrentPlayerTurn());
+    }
+
+    @Test
+    void testLazySmpFindsMateAndLeavesBoardUnchanged() {
+        // Arrange
+        setCustomBoard(Piece.PieceColor.WHITE, "Kg1", "Ra1", "kg8", "pf7", "pg7", "ph7");
+        long key = board.getZobristKey();
+        LazySmpSearch smp = new LazySmpSearch(3, new TranspositionTable(1));
+
+        // Act
+        int move = smp.findBestMove(board, 4, 0);
+        smp.shutdown();
+
+        // Assert
+        assertEquals("a1a8", Move.toUci(move));
+        assertTrue(smp.getNodes() > 0);
+        assertEquals(key, board.getZobristKey());
+    }
+
+    @Test
+    void testLazySmpNodeLimitCoversAllThreads() {
+        // Arrange
+        Board start = new Board();
+        LazySmpSearch smp = new LazySmpSearch(4, new TranspositionTable(1));
+        smp.setNodeLimit(50_000);
+
+        // Act
+        smp.findBestMove(start, Search.MAX_DEPTH, 0);
+        smp.shutdown();
+
+        // Assert: each thread may overshoot by one check interval, but not search its own budget
+        assertTrue(smp.getNodes() < 100_000, "nodes: " + smp.getNodes());
+    }
+
+    @Test
+    void testBoardCopyIsIndependent() {
+        // Arrange
+        Board original = new Board();
+        Board copy = new Board(original);
+
+        // Act
+        copy.move("e2e4");
+
+        // Assert
+        assertEquals(Piece.PieceType.PAWN, original.getPiece(6, 4).getType(), "Moving on the copy must not touch the original.");
+        assertNull(copy.getPiece(6, 4));
+        assertEquals(original.computeZobristKey(), original.getZobristKey());
+        assertEquals(copy.computeZobristKey(), copy.getZobristKey());
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SelfPlayTest {
+
+    @Test
+    void testBatchPlaysEveryGame() {
+        // Arrange: shallow search and a short ply cap keep the batch quick
+        SelfPlay selfPlay = new SelfPlay(1, 4, 40);
+
+        // Act
+        SelfPlay.Summary summary = selfPlay.run(6, 3, 7L);
+
+        // Assert
+        assertEquals(6, summary.games());
+        assertTrue(summary.averagePlies() > 0 && summary.averagePlies() <= 40);
+        assertTrue(summary.gamesPerSecond() > 0);
+    }
+
+    @Test
+    void testFailedGameDoesNotStopTheBatch() {
+        // Arrange: the game with seed 8 throws
+        SelfPlay selfPlay = new SelfPlay(1, 4, 40) {
+            @Override
+            public GameResult playGame(long seed) {
+                if (seed == 8L) {
+                    throw new IllegalStateException("broken game");
+                }
+                return super.playGame(seed);
+            }
+        };
+
+        // Act
+        SelfPlay.Summary summary = selfPlay.run(6, 3, 7L);
+
+        // Assert
+        assertEquals(1, summary.failedGames);
+        assertEquals(5, summary.games());
+        assertTrue(summary.toString().endsWith(", 1 failed"));
+    }
+
+    @Test
+    void testSameSeedReplaysSameGame() {
+        // Arrange
+        SelfPlay selfPlay = new SelfPlay(1, 6, 60);
+
+        // Act
+        SelfPlay.GameResult first = selfPlay.playGame(42L);
+        SelfPlay.GameResult second = selfPlay.playGame(42L);
+
+        // Assert
+        assertEquals(first.outcome, second.outcome);
+        assertEquals(first.plies, second.plies);
+    }
+}
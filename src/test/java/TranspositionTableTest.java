@@ -0,0 +1,80 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    void testStoreAndProbeRoundTrip() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new Board().getZobristKey();
+        int move = Move.encode(12, 28, Move.DOUBLE_PAWN_PUSH);
+
+        // Act
+        table.store(key, 7, TranspositionTable.LOWER_BOUND, -1234, move);
+        long entry = table.probe(key);
+
+        // Assert
+        assertNotEquals(0L, entry);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-1234, TranspositionTable.score(entry), "Negative scores must survive packing.");
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    void testProbeMissesOtherKeyInSameSlot() {
+        // Arrange: a 1 MB table has 65536 entries, so these keys share a slot
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(65536, table.capacity());
+        long key = 0x123456789ABCDEF0L;
+        long otherKey = key ^ (1L << 40);
+
+        // Act
+        table.store(key, 3, TranspositionTable.EXACT, 50, Move.NONE);
+
+        // Assert
+        assertEquals(0L, table.probe(otherKey));
+        table.clear();
+        assertEquals(0L, table.probe(key), "clear() should empty the table.");
+    }
+
+    @Test
+    void testDeeperEntryIsKeptForBoundResults() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42L;
+        table.store(key, 9, TranspositionTable.LOWER_BOUND, 100, Move.NONE);
+
+        // Act: a shallower bound must not overwrite, an exact result may
+        table.store(key, 2, TranspositionTable.UPPER_BOUND, -5, Move.NONE);
+        int depthAfterBound = TranspositionTable.depth(table.probe(key));
+        table.store(key, 2, TranspositionTable.EXACT, 7, Move.NONE);
+
+        // Assert
+        assertEquals(9, depthAfterBound);
+        assertEquals(TranspositionTable.EXACT, TranspositionTable.bound(table.probe(key)));
+    }
+
+    @Test
+    void testSearchWithTableFindsMate() {
+        // Arrange: back rank mate, searched deep enough that the table is exercised
+        Board board = new Board();
+        board.clearBoard();
+        board.resetCastlingFlags();
+        for (String p : new String[]{"Kg1", "Ra1", "Rb1", "kg8", "pf7", "pg7", "ph7"}) {
+            board.placePiece(p);
+        }
+        board.setPlayerTurn(Piece.PieceColor.WHITE);
+        TranspositionTable table = new TranspositionTable(1);
+
+        // Act
+        int move = new Search(board, table).findBestMove(4, 0);
+
+        // Assert
+        assertTrue(Move.toUci(move).endsWith("8"), "Expected a rook mate on the back rank, got " + Move.toUci(move));
+        assertTrue(table.hashfull() > 0);
+    }
+}
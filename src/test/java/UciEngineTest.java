@@ -0,0 +1,74 @@
+package org.example.chess;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UciEngineTest {
+
+    private static String runScript(String script) throws IOException {
+        StringWriter output = new StringWriter();
+        new UciEngine(new StringReader(script), output).run();
+        return output.toString();
+    }
+
+    @Test
+    void testHandshake() throws IOException {
+        // Act
+        String output = runScript("uci\nisready\nquit\n");
+
+        // Assert
+        assertTrue(output.startsWith("id name " + UciEngine.ENGINE_NAME));
+        assertTrue(output.contains("option name Threads"));
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.trim().endsWith("readyok"));
+    }
+
+    @Test
+    void testFindsMateFromFenWithMoves() throws IOException {
+        // Arrange: after 1. Kg2 Kh8 the back rank mate Ra8# is on
+        String script = "position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1 moves g1g2 g8h8\n"
+                + "go depth 3\n";
+
+        // Act: the end of the input waits for the search like quit does
+        String output = runScript(script);
+
+        // Assert
+        assertTrue(output.contains("score mate 1"), output);
+        assertTrue(output.trim().endsWith("bestmove a1a8"), output);
+    }
+
+    @Test
+    void testStopEndsInfiniteSearch() throws Exception {
+        // Arrange
+        StringWriter output = new StringWriter();
+        UciEngine engine = new UciEngine(new StringReader(""), output);
+        engine.handle("position startpos moves e2e4");
+        engine.handle("go infinite");
+        Thread.sleep(300);
+        boolean reportedEarly = output.toString().contains("bestmove");
+
+        // Act
+        engine.handle("stop");
+
+        // Assert
+        assertFalse(reportedEarly, "An infinite search must wait for stop.");
+        assertTrue(output.toString().contains("bestmove "), output.toString());
+        assertTrue(engine.handle("isready"));
+        assertFalse(engine.handle("quit"));
+    }
+
+    @Test
+    void testTimeBudgetAndScoreFormat() {
+        // Act & Assert
+        assertEquals(500, UciEngine.timeBudget(60_000, 0, 0, 500), "movetime wins.");
+        assertEquals(60_000 / 30 + 750, UciEngine.timeBudget(60_000, 1000, 0, 0));
+        assertEquals(0, UciEngine.timeBudget(0, 0, 0, 0), "No clock means no time limit.");
+        assertTrue(UciEngine.timeBudget(40, 0, 1, 0) < 40, "Never use the whole clock.");
+        assertEquals("cp 150", UciEngine.formatScore(150));
+        assertEquals("mate 1", UciEngine.formatScore(Search.MATE_SCORE - 1));
+        assertEquals("mate -2", UciEngine.formatScore(-(Search.MATE_SCORE - 4)));
+    }
+}